@@ -34,7 +34,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import java.io.IOException;
 import java.net.URL;
@@ -78,6 +84,9 @@ public class PluginIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
     @Test
     public void testApp() throws Exception {
         mvc.perform(get("/book/list")
@@ -338,6 +347,46 @@ public class PluginIntegrationTest {
                 .andExpect(jsonPath("$", equalTo("plugin")));
     }
 
+    @Test
+    public void testImportedTransactionManager() {
+        SpringBootPlugin authorPlugin = (SpringBootPlugin)
+                pluginManager.getPlugin("demo-plugin-author").getPlugin();
+        PlatformTransactionManager transactionManager = authorPlugin.getApplicationContext()
+                .getBean("transactionManager", PlatformTransactionManager.class);
+        // imported from app and wrapped by proxy
+        assertThat(transactionManager.getClass().getName(), containsString("_sbp_proxy"));
+
+        // final methods of AbstractPlatformTransactionManager are run against proxy itself
+        Boolean active = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        });
+        assertThat(active, equalTo(true));
+        assertThat(new TransactionTemplate(transactionManager).execute(status -> 1), equalTo(1));
+    }
+
+    @Test
+    public void testMainBeanRegistryIndexRefreshed() {
+        SpringBootPlugin authorPlugin = (SpringBootPlugin)
+                pluginManager.getPlugin("demo-plugin-author").getPlugin();
+        assertThat(pluginManager.getMainBeanRegistryIndex().containsBean("sbpIndexProbe"), is(false));
+        assertThat(pluginManager.getMainBeanRegistryIndex().getBeanNamesForType(IndexProbe.class), emptyArray());
+
+        // singleton registered at runtime
+        authorPlugin.registerBeanToMainContext("sbpIndexProbe", new IndexProbe());
+        try {
+            assertThat(pluginManager.getMainBeanRegistryIndex().containsBean("sbpIndexProbe"), is(true));
+            assertThat(pluginManager.getMainBeanRegistryIndex().getBeanNamesForType(IndexProbe.class),
+                    arrayContaining("sbpIndexProbe"));
+        } finally {
+            authorPlugin.unregisterBeanFromMainContext("sbpIndexProbe");
+        }
+        assertThat(pluginManager.getMainBeanRegistryIndex().containsBean("sbpIndexProbe"), is(false));
+        assertThat(pluginManager.getMainBeanRegistryIndex().getBeanNamesForType(IndexProbe.class), emptyArray());
+    }
+
+    static class IndexProbe {}
+
     @Test
     public void testPluginProfile() throws Exception {
         mvc.perform(get("/admin/user")
@@ -422,6 +471,49 @@ public class PluginIntegrationTest {
             });
     }
 
+    @Test
+    public void testPluginBasePathContendedByApp() throws Exception {
+        // /author is the base path of demo-plugin-author
+        mvc.perform(get("/author/delete/all"))
+                .andExpect(status().isBadRequest());
+
+        // a better match from main app takes precedence over plugin mappings
+        RequestMappingInfo mapping = RequestMappingInfo.paths("/author/delete/all").build();
+        requestMappingHandlerMapping.registerMapping(mapping, new AppAuthorHandler(),
+                AppAuthorHandler.class.getMethod("deleteAll"));
+        try {
+            mvc.perform(get("/author/delete/all"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("app"));
+            mvc.perform(get("/author/list")
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)));
+        } finally {
+            requestMappingHandlerMapping.unregisterMapping(mapping);
+        }
+
+        mvc.perform(get("/author/delete/all"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testPluginBasePathMethodValidation() throws Exception {
+        // routed under base path of demo-plugin-author, constraints should still be validated
+        mvc.perform(get("/author/page/5"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+        mvc.perform(get("/author/page/500"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @ResponseBody
+    public static class AppAuthorHandler {
+        public String deleteAll() {
+            return "app";
+        }
+    }
+
     public interface Runnable {
         void run() throws Exception;
     }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package demo.sbp.app;
+
+import demo.sbp.api.extension.PluginRegister;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.laxture.sbp.SpringBootPluginManager;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Plugins started in parallel, with demo-plugin-admin started on demand.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoTestApp.class)
+@TestPropertySource(properties = {
+        "spring.autoconfigure.exclude=" +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration," +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration",
+        "spring.sbp.plugin-start-parallelism=3",
+        "spring.sbp.lazy-plugins.demo-plugin-admin=/admin/**"})
+@AutoConfigureMockMvc
+@ActiveProfiles("no_security")
+public class PluginLazyStartTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Autowired
+    private SpringBootPluginManager pluginManager;
+
+    @Before
+    public void setUp() {
+        // start over, demo-plugin-admin is dormant again
+        pluginManager.restartPlugins();
+    }
+
+    @After
+    public void tearDown() {
+        pluginManager.startPlugin("demo-plugin-admin");
+    }
+
+    @Test
+    public void testLazyPluginActivatedByRequest() throws Exception {
+        assertThat(pluginManager.getPlugin("demo-plugin-author").getPluginState(), equalTo(PluginState.STARTED));
+        assertThat(pluginManager.getPlugin("demo-plugin-shelf").getPluginState(), equalTo(PluginState.STARTED));
+        assertThat(pluginManager.isDormant("demo-plugin-admin"), equalTo(true));
+
+        mvc.perform(get("/admin/user")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        assertThat(pluginManager.isDormant("demo-plugin-admin"), equalTo(false));
+        assertThat(pluginManager.getPlugin("demo-plugin-admin").getPluginState(), equalTo(PluginState.STARTED));
+    }
+
+    @Test
+    public void testLazyPluginActivatedByExtensionLookup() throws Exception {
+        assertThat(pluginManager.isDormant("demo-plugin-admin"), equalTo(true));
+
+        mvc.perform(get("/plugin/extensions/list")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*]",
+                        containsInAnyOrder("author", "shelf", "admin")));
+
+        assertThat(pluginManager.getPlugin("demo-plugin-admin").getPluginState(), equalTo(PluginState.STARTED));
+    }
+
+    @Test
+    public void testLookupLazyPluginWhileStartingInParallel() throws Exception {
+        // extensions are looked up on plugin starter thread, while batch starting
+        // thread holds plugin operation lock.
+        PluginStateListener listener = event -> {
+            if (event.getPluginState() == PluginState.STARTED
+                    && "demo-plugin-shelf".equals(event.getPlugin().getPluginId())) {
+                pluginManager.getExtensions(PluginRegister.class);
+            }
+        };
+        pluginManager.addPluginStateListener(listener);
+        try {
+            // shouldn't deadlock
+            CompletableFuture.runAsync(() -> pluginManager.restartPlugins())
+                    .get(60, TimeUnit.SECONDS);
+        } finally {
+            pluginManager.removePluginStateListener(listener);
+        }
+
+        // activation is deferred until the batch is done
+        assertThat(pluginManager.getPlugin("demo-plugin-admin").getPluginState(), equalTo(PluginState.STARTED));
+        List<String> names = pluginManager.getExtensions(PluginRegister.class).stream()
+                .map(PluginRegister::name).collect(Collectors.toList());
+        assertThat(names, containsInAnyOrder("author", "shelf", "admin"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package demo.sbp.app;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Resource chain resolvers configured by `spring.web.resources.chain` wrap plugin resources.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoTestApp.class)
+@TestPropertySource(properties = {
+        "spring.autoconfigure.exclude=" +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration," +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration",
+        "spring.web.resources.chain.strategy.content.enabled=true",
+        "spring.web.resources.chain.strategy.content.paths=/**"})
+@AutoConfigureMockMvc
+@ActiveProfiles("no_security")
+public class PluginResourceChainTest {
+
+    private static final String FOO = "<body>\nHello foo!\n</body>";
+    private static final String BAR = "<body>\nHello bar!\n</body>";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    public void testVersionedResource() throws Exception {
+        mvc.perform(get("/public/foo-" + contentVersion(FOO) + ".html") // served by demo-app
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string(FOO));
+
+        mvc.perform(get("/public/bar-" + contentVersion(BAR) + ".html") // served by demo-plugin-admin
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string(BAR));
+
+        // unversioned path is still served
+        mvc.perform(get("/public/bar.html")
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string(BAR));
+
+        // mismatched version is rejected
+        mvc.perform(get("/public/bar-0123456789abcdef0123456789abcdef.html")
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isNotFound());
+    }
+
+    private static String contentVersion(String content) {
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
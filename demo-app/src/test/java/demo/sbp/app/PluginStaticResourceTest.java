@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package demo.sbp.app;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
+import org.laxture.sbp.internal.SpringBootPluginClassLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Plugin static resources served with extraction enabled.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DemoTestApp.class)
+@TestPropertySource(properties = {
+        "spring.autoconfigure.exclude=" +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration," +
+                "org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration",
+        "spring.sbp.static-resource-extract-enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("no_security")
+public class PluginStaticResourceTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection")
+    @Autowired
+    private SpringBootPluginManager pluginManager;
+
+    @Autowired
+    private PluginStaticResourceStore staticResourceStore;
+
+    @Test
+    public void testResourceHandler() throws Exception {
+        mvc.perform(get("/public/bar.html") // served by demo-plugin-admin
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string("<body>\nHello bar!\n</body>"));
+
+        pluginManager.stopPlugin("demo-plugin-admin");
+        mvc.perform(get("/public/bar.html")
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isNotFound());
+
+        pluginManager.startPlugin("demo-plugin-admin");
+        mvc.perform(get("/public/bar.html")
+                .contentType(MediaType.TEXT_HTML))
+                .andExpect(status().isOk())
+                .andExpect(content().string("<body>\nHello bar!\n</body>"));
+    }
+
+    @Test
+    public void testExtractFromJar() throws Exception {
+        // plugins are loaded from directories in development mode, so pack one in jar here
+        Path jarFile = Files.createTempFile("sbp-static", ".jar");
+        try (JarOutputStream os = new JarOutputStream(Files.newOutputStream(jarFile))) {
+            os.putNextEntry(new JarEntry("static/sbp.txt"));
+            os.write("Hello sbp!".getBytes(StandardCharsets.UTF_8));
+            os.closeEntry();
+        }
+        SpringBootPluginClassLoader classLoader = new SpringBootPluginClassLoader(pluginManager,
+            pluginManager.getPlugin("demo-plugin-admin").getDescriptor(), getClass().getClassLoader());
+        classLoader.addFile(jarFile.toFile());
+        try {
+            Resource resource = new ClassPathResource("static/sbp.txt", classLoader);
+            Resource extracted = staticResourceStore.extract(resource);
+            assertThat(extracted, instanceOf(PluginStaticResourceStore.ExtractedResource.class));
+            assertThat(extracted.getContentAsString(StandardCharsets.UTF_8), equalTo("Hello sbp!"));
+            assertThat(((PluginStaticResourceStore.ExtractedResource) extracted).getPluginId(),
+                equalTo("demo-plugin-admin"));
+            assertThat(staticResourceStore.getETag(extracted), startsWith("\""));
+
+            // indexed, not extracted again
+            assertThat(staticResourceStore.getExtracted(resource), sameInstance(extracted));
+            assertThat(staticResourceStore.extract(resource), sameInstance(extracted));
+
+            // pruned once plugin is unloaded
+            staticResourceStore.prune("demo-plugin-admin");
+            assertThat(extracted.exists(), is(false));
+            assertThat(staticResourceStore.getExtracted(resource), nullValue());
+        } finally {
+            classLoader.close();
+            Files.deleteIfExists(jarFile);
+        }
+    }
+}
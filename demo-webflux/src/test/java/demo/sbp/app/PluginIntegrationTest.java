@@ -18,7 +18,10 @@ package demo.sbp.app;
 import lombok.extern.java.Log;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.laxture.sbp.SpringBootPluginManager;
 import org.pf4j.PluginManager;
+import org.pf4j.PluginState;
+import org.pf4j.PluginStateListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -28,8 +31,12 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 
@@ -146,6 +153,53 @@ public class PluginIntegrationTest {
             .expectBody().jsonPath("$").value(equalTo("I am plugin!"));
     }
 
+    @Test
+    public void testPluginRouterHeldWhileRestarting() throws Exception {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        AtomicBoolean held = new AtomicBoolean();
+        PluginStateListener listener = event -> {
+            if (!"demo-plugin-webflux".equals(event.getPlugin().getPluginId())
+                    || event.getPluginState() != PluginState.STOPPED
+                    || response.isDone()) return;
+            // request arrives while plugin is stopped for restarting
+            CompletableFuture.runAsync(() -> response.complete(webTestClient
+                .get().uri("/admin/plugin")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody()))
+                .exceptionally(ex -> { response.completeExceptionally(ex); return null; });
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ignored) {
+            }
+            held.set(!response.isDone());
+        };
+        pluginManager.addPluginStateListener(listener);
+        try {
+            ((SpringBootPluginManager) pluginManager).restartPlugin("demo-plugin-webflux");
+        } finally {
+            pluginManager.removePluginStateListener(listener);
+        }
+        assertTrue(held.get());
+        assertThat(response.get(10, TimeUnit.SECONDS), equalTo("I am plugin!"));
+    }
+
+    @Test
+    public void testHibernatedPluginRouterResumed() {
+        SpringBootPluginManager springBootPluginManager = (SpringBootPluginManager) pluginManager;
+        springBootPluginManager.hibernatePlugin("demo-plugin-webflux");
+        assertThat(pluginManager.getPlugin("demo-plugin-webflux").getPluginState(), not(PluginState.STARTED));
+        assertTrue(springBootPluginManager.isDormant("demo-plugin-webflux"));
+
+        // router function only route resumes plugin
+        webTestClient
+            .get().uri("/admin/plugin")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$").value(equalTo("I am plugin!"));
+        assertThat(pluginManager.getPlugin("demo-plugin-webflux").getPluginState(), equalTo(PluginState.STARTED));
+    }
+
     @Test
     public void testApiDoc() {
         webTestClient
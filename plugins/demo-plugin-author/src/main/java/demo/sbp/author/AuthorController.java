@@ -19,6 +19,7 @@ import demo.sbp.api.model.Author;
 import demo.sbp.api.model.Book;
 import demo.sbp.api.service.AuthorService;
 import demo.sbp.api.service.BookService;
+import jakarta.validation.constraints.Max;
 import org.apache.commons.lang3.ArrayUtils;
 import org.jooq.DSLContext;
 import org.jooq.impl.DSL;
@@ -97,6 +98,11 @@ public class AuthorController {
                 .execute();
     }
 
+    @RequestMapping(value = "/page/{size}")
+    public @ResponseBody int page(@PathVariable @Max(100) int size) {
+        return size;
+    }
+
     @RequestMapping(value = "/failed")
     @Transactional
     public @ResponseBody List<Author> saveFailed() {
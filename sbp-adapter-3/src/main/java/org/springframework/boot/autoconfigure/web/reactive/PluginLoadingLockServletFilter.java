@@ -2,11 +2,18 @@ package org.springframework.boot.autoconfigure.web.reactive;
 
 import lombok.extern.slf4j.Slf4j;
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginLoadingGate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
 
 @Slf4j
 public class PluginLoadingLockServletFilter implements WebFilter {
@@ -14,12 +21,60 @@ public class PluginLoadingLockServletFilter implements WebFilter {
     @Autowired
     private SpringBootPluginManager pluginManager;
 
+    private Duration loadingTimeout = Duration.ofSeconds(60);
+
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    /**
+     * How long a request waits for plugin loading, respond 503 if timeout.
+     */
+    public void setLoadingTimeout(Duration loadingTimeout) {
+        this.loadingTimeout = loadingTimeout;
+    }
+
+    /**
+     * Value of `Retry-After` header when request is rejected by timeout.
+     */
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-        while (true) {
-            if (!pluginManager.isLoading()) break;
-            log.debug("Plugin loading, waiting...");
+        String lookupPath = exchange.getRequest().getPath().pathWithinApplication().value();
+        PluginLoadingGate loadingGate = pluginManager.getLoadingGate(lookupPath);
+        if (loadingGate == null) return activateAndFilter(lookupPath, exchange, chain);
+
+        log.debug("Plugin loading, waiting...");
+        // resume the request when loading is finished, without blocking event loop thread
+        return Mono.fromFuture(loadingGate.whenReleased())
+            .thenReturn(true)
+            .timeout(loadingTimeout, Mono.just(false))
+            // gate is released on plugin loading thread, don't handle request on it
+            .publishOn(Schedulers.parallel())
+            .flatMap(released -> released ? activateAndFilter(lookupPath, exchange, chain) : reject(exchange));
+    }
+
+    private Mono<Void> activateAndFilter(String lookupPath, ServerWebExchange exchange, WebFilterChain chain) {
+        String dormantPluginId = pluginManager.resolveDormantPlugin(lookupPath);
+        if (dormantPluginId == null) {
+            pluginManager.recordAccess(lookupPath);
+            return chain.filter(exchange);
         }
-        return chain.filter(exchange);
+
+        log.debug("Activating lazy plugin {} for request {}", dormantPluginId, lookupPath);
+        // starting plugin is blocking, never do it on event loop thread
+        return Mono.fromCallable(() -> pluginManager.activatePlugin(dormantPluginId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnSuccess(state -> pluginManager.recordAccess(lookupPath))
+            .then(Mono.defer(() -> chain.filter(exchange)));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange) {
+        log.warn("Plugin loading is not finished in {}ms, reject request.", loadingTimeout.toMillis());
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.getSeconds()));
+        return response.setComplete();
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,18 @@
 package org.springframework.boot.autoconfigure.web.servlet;
 
 import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginLoadingGate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UrlPathHelper;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public class PluginLoadingLockServletFilter implements Filter {
@@ -13,12 +20,44 @@ public class PluginLoadingLockServletFilter implements Filter {
     @Autowired
     private SpringBootPluginManager pluginManager;
 
+    private Duration loadingTimeout = Duration.ofSeconds(60);
+
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    /**
+     * How long a request waits for plugin loading, respond 503 if timeout.
+     */
+    public void setLoadingTimeout(Duration loadingTimeout) {
+        this.loadingTimeout = loadingTimeout;
+    }
+
+    /**
+     * Value of `Retry-After` header when request is rejected by timeout.
+     */
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        while (true) {
-            if (!pluginManager.isLoading()) break;
+        String lookupPath = UrlPathHelper.defaultInstance.getPathWithinApplication((HttpServletRequest) request);
+        PluginLoadingGate loadingGate = pluginManager.getLoadingGate(lookupPath);
+        if (loadingGate != null) {
             log.debug("Plugin loading, waiting...");
+            if (!loadingGate.await(loadingTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Plugin loading is not finished in {}ms, reject request.", loadingTimeout.toMillis());
+                HttpServletResponse httpResponse = (HttpServletResponse) response;
+                httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.getSeconds()));
+                httpResponse.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+        }
+        String dormantPluginId = pluginManager.resolveDormantPlugin(lookupPath);
+        if (dormantPluginId != null) {
+            log.debug("Activating lazy plugin {} for request {}", dormantPluginId, lookupPath);
+            pluginManager.activatePlugin(dormantPluginId);
         }
+        pluginManager.recordAccess(lookupPath);
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
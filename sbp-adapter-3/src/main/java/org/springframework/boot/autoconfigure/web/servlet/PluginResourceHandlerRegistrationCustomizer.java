@@ -15,13 +15,13 @@
  */
 package org.springframework.boot.autoconfigure.web.servlet;
 
+import org.laxture.sbp.internal.PluginResourceChainCache;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
 import org.laxture.sbp.internal.webmvc.PluginResourceResolver;
 import org.laxture.sbp.spring.boot.SbpPluginStateChangedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.WebProperties.Resources;
-import org.springframework.cache.Cache;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.ApplicationListener;
 import org.springframework.web.servlet.config.annotation.ResourceChainRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
@@ -29,6 +29,9 @@ import org.springframework.web.servlet.resource.EncodedResourceResolver;
 import org.springframework.web.servlet.resource.ResourceResolver;
 import org.springframework.web.servlet.resource.VersionResourceResolver;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * Provide static resources lookup for plugin.
  *
@@ -38,25 +41,28 @@ public class PluginResourceHandlerRegistrationCustomizer implements
     WebMvcAutoConfiguration.ResourceHandlerRegistrationCustomizer,
     ApplicationListener<SbpPluginStateChangedEvent> {
 
-    private static final String DEFAULT_CACHE_NAME = "sbp-resource-chain-cache";
-
     @Autowired
     private WebProperties webProperties;
 
-    private Cache sbpResourceCache;
+    @Autowired(required = false)
+    private PluginResourceChainCache sbpResourceCache;
+
+    @Autowired(required = false)
+    private PluginStaticResourceStore staticResourceStore;
+
+    private final List<PluginResourceResolver> resourceResolvers = new CopyOnWriteArrayList<>();
 
     @Override
     public void customize(ResourceHandlerRegistration registration) {
         if (sbpResourceCache == null) {
-            sbpResourceCache = new ConcurrentMapCache(DEFAULT_CACHE_NAME);
+            sbpResourceCache = new PluginResourceChainCache(
+                PluginResourceChainCache.DEFAULT_CACHE_NAME, 0, null);
         }
         Resources resourcesProperties = this.webProperties.getResources();
         if (resourcesProperties == null) resourcesProperties = new Resources();
         Resources.Chain properties = resourcesProperties.getChain();
         ResourceChainRegistration chain = registration.resourceChain(properties.isCache(), sbpResourceCache);
 
-        chain.addResolver(new PluginResourceResolver());
-
         Resources.Chain.Strategy strategy = properties.getStrategy();
         if (properties.isCompressed()) {
             chain.addResolver(new EncodedResourceResolver());
@@ -64,6 +70,17 @@ public class PluginResourceHandlerRegistrationCustomizer implements
         if (strategy.getFixed().isEnabled() || strategy.getContent().isEnabled()) {
             chain.addResolver(getVersionResourceResolver(strategy));
         }
+
+        // PluginResourceResolver resolves resource in the end without delegating to
+        // next resolver, so it goes last to let encoded/versioned resolvers wrap it.
+        PluginResourceResolver resolver = new PluginResourceResolver();
+        if (staticResourceStore != null) {
+            resolver.setStaticResourceStore(staticResourceStore);
+            sbpResourceCache.setStaticResourceStore(staticResourceStore);
+            registration.setEtagGenerator(staticResourceStore::getETag);
+        }
+        resourceResolvers.add(resolver);
+        chain.addResolver(resolver);
     }
 
     private ResourceResolver getVersionResourceResolver(Resources.Chain.Strategy properties) {
@@ -82,7 +99,8 @@ public class PluginResourceHandlerRegistrationCustomizer implements
 
     @Override
     public void onApplicationEvent(SbpPluginStateChangedEvent event) {
+        resourceResolvers.forEach(resolver -> resolver.evictResources(event.getPluginId()));
         if (sbpResourceCache == null) return;
-        sbpResourceCache.clear();
+        sbpResourceCache.evictPlugin(event.getPluginId());
     }
 }
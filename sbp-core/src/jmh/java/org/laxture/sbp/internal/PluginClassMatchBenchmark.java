@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pf4j.DefaultPluginDescriptor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Match a class loading trace of plugin startup against `plugin-first-classes`,
+ * by compiled and memoized pattern vs. `String.matches()` per pattern as before.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginClassMatchBenchmark {
+
+    private static final List<String> PLUGIN_FIRST_CLASSES = List.of(
+        "org.jooq.*",
+        "com.zaxxer.hikari.*",
+        "org.flywaydb.core.internal.*Resolver",
+        "demo.sbp.author.*Service",
+        "org.hibernate.?ersion");
+
+    // classes loaded repeatedly when a plugin starts, e.g. by Spring's type matching
+    private static final String[] TRACE = {
+        "org.springframework.context.annotation.ConfigurationClassPostProcessor",
+        "org.springframework.beans.factory.support.DefaultListableBeanFactory",
+        "org.springframework.boot.autoconfigure.condition.OnClassCondition",
+        "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+        "org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration",
+        "org.springframework.web.servlet.DispatcherServlet",
+        "org.springframework.transaction.PlatformTransactionManager",
+        "org.springframework.jdbc.core.JdbcTemplate",
+        "org.jooq.DSLContext",
+        "org.jooq.impl.DefaultConfiguration",
+        "com.zaxxer.hikari.HikariDataSource",
+        "org.flywaydb.core.Flyway",
+        "org.flywaydb.core.internal.resolver.CompositeMigrationResolver",
+        "org.hibernate.Version",
+        "demo.sbp.author.AuthorController",
+        "demo.sbp.author.AuthorService",
+        "demo.sbp.api.service.BookService",
+        "com.fasterxml.jackson.databind.ObjectMapper",
+        "org.slf4j.LoggerFactory",
+        "reactor.core.publisher.Mono",
+    };
+
+    private List<String> legacyPatterns;
+
+    private SpringBootPluginClassLoader classLoader;
+
+    @Setup
+    public void setup() {
+        legacyPatterns = PLUGIN_FIRST_CLASSES.stream()
+            .map(pluginFirstClass -> pluginFirstClass
+                .replaceAll(".", "[$0]")
+                .replace("[*]", ".*?")
+                .replace("[?]", ".?"))
+            .collect(Collectors.toList());
+        classLoader = new SpringBootPluginClassLoader(null,
+            new DefaultPluginDescriptor("benchmark", null, null, "0.0.1", null, null, null),
+            getClass().getClassLoader());
+        classLoader.setPluginFirstClasses(PLUGIN_FIRST_CLASSES);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        classLoader.close();
+    }
+
+    @Benchmark
+    public void stringMatches(Blackhole blackhole) {
+        for (String className : TRACE) {
+            boolean matched = false;
+            for (String pattern : legacyPatterns) {
+                if (className.matches(pattern)) {
+                    matched = true;
+                    break;
+                }
+            }
+            blackhole.consume(matched);
+        }
+    }
+
+    @Benchmark
+    public void compiledPattern(Blackhole blackhole) {
+        for (String className : TRACE) {
+            blackhole.consume(classLoader.isPluginFirstClass(className));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.Serializable;
+import java.util.EventListener;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Refresh plugin application context with hundreds of beans and resolve beans by type
+ * as autowiring does, by {@link PluginListableBeanFactory} memoizing bean name class
+ * lookups vs. loading bean name as class on every type prediction as before.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginContextRefreshBenchmark {
+
+    private static final int BEAN_COUNT = 500;
+
+    private static final Class<?>[] AUTOWIRED_TYPES = {
+        Runnable.class, Callable.class, Supplier.class, Serializable.class, EventListener.class,
+        AutoCloseable.class, Comparable.class, CharSequence.class, Iterable.class, Cloneable.class,
+    };
+
+    @Benchmark
+    public GenericApplicationContext legacyBeanFactory() {
+        return refresh(new LegacyBeanFactory(getClass().getClassLoader()));
+    }
+
+    @Benchmark
+    public GenericApplicationContext pluginBeanFactory() {
+        return refresh(new PluginListableBeanFactory(getClass().getClassLoader()));
+    }
+
+    private GenericApplicationContext refresh(DefaultListableBeanFactory beanFactory) {
+        GenericApplicationContext applicationContext = new GenericApplicationContext(beanFactory);
+        for (int i = 0; i < BEAN_COUNT; i++) {
+            // most bean names are not class names, a few look like one
+            String beanName = i % 10 == 0 ? "demo.sbp.plugin.Service" + i : "bookService" + i;
+            applicationContext.registerBean(beanName, BenchmarkBean.class);
+        }
+        applicationContext.refresh();
+        for (Class<?> type : AUTOWIRED_TYPES) {
+            applicationContext.getBeanNamesForType(type);
+        }
+        applicationContext.close();
+        return applicationContext;
+    }
+
+    public static class BenchmarkBean {}
+
+    private static class LegacyBeanFactory extends DefaultListableBeanFactory {
+
+        private final ClassLoader classLoader;
+
+        LegacyBeanFactory(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> predictBeanType(String beanName, RootBeanDefinition mbd, Class<?>... typesToMatch) {
+            try {
+                return classLoader.loadClass(beanName);
+            } catch (ClassNotFoundException ignored) {}
+            return super.predictBeanType(beanName, mbd, typesToMatch);
+        }
+    }
+}
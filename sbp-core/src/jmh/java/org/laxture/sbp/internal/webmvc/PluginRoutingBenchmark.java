@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal.webmvc;
+
+import org.laxture.sbp.SpringBootPlugin;
+import org.laxture.sbp.spring.boot.SpringBootstrap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.pf4j.DefaultPluginDescriptor;
+import org.pf4j.DefaultPluginManager;
+import org.pf4j.PluginManager;
+import org.pf4j.PluginWrapper;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Look up handler among 5k request mappings registered by 50 plugins, through the
+ * routing table keyed by plugin base path vs. Spring's matching over all mappings.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginRoutingBenchmark {
+
+    private static final int PLUGIN_COUNT = 50;
+    private static final int MAPPINGS_PER_PLUGIN = 100;
+    private static final int REQUEST_COUNT = 64;
+
+    private GenericApplicationContext applicationContext;
+
+    private PluginManager pluginManager;
+
+    private PluginRequestMappingHandlerMapping globalMapping;
+
+    private PluginRequestMappingHandlerMapping routedMapping;
+
+    private MockHttpServletRequest[] requests;
+
+    @Setup
+    public void setup() throws Exception {
+        applicationContext = new GenericApplicationContext();
+        applicationContext.refresh();
+        pluginManager = new DefaultPluginManager();
+        globalMapping = createHandlerMapping(false);
+        routedMapping = createHandlerMapping(true);
+
+        Random random = new Random(42);
+        requests = new MockHttpServletRequest[REQUEST_COUNT];
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", String.format(
+                "/plugin%d/resource%d/42", random.nextInt(PLUGIN_COUNT), random.nextInt(MAPPINGS_PER_PLUGIN)));
+            ServletRequestPathUtils.parseAndCache(request);
+            requests[i] = request;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    private PluginRequestMappingHandlerMapping createHandlerMapping(boolean routed) throws Exception {
+        PluginRequestMappingHandlerMapping handlerMapping = new PluginRequestMappingHandlerMapping();
+        handlerMapping.setApplicationContext(applicationContext);
+        handlerMapping.afterPropertiesSet();
+        Method method = BenchmarkController.class.getMethod("handle", long.class);
+        for (int i = 0; i < PLUGIN_COUNT; i++) {
+            BenchmarkController controller = new BenchmarkController();
+            for (int j = 0; j < MAPPINGS_PER_PLUGIN; j++) {
+                handlerMapping.registerHandlerMethod(controller, method,
+                    RequestMappingInfo.paths(String.format("/plugin%d/resource%d/{id}", i, j))
+                        .methods(RequestMethod.GET)
+                        .options(handlerMapping.getBuilderConfiguration())
+                        .build());
+            }
+            if (routed) handlerMapping.updatePluginRoute(new BenchmarkPlugin(pluginManager, i), List.of(controller));
+        }
+        return handlerMapping;
+    }
+
+    @Benchmark
+    public void globalLookup(Blackhole blackhole) throws Exception {
+        for (MockHttpServletRequest request : requests) {
+            blackhole.consume(globalMapping.lookupHandlerMethod(request.getRequestURI(), request));
+        }
+    }
+
+    @Benchmark
+    public void routedLookup(Blackhole blackhole) throws Exception {
+        for (MockHttpServletRequest request : requests) {
+            blackhole.consume(routedMapping.lookupHandlerMethod(request.getRequestURI(), request));
+        }
+    }
+
+    public static class BenchmarkController {
+
+        public String handle(long id) {
+            return String.valueOf(id);
+        }
+    }
+
+    private static class BenchmarkPlugin extends SpringBootPlugin {
+
+        private final String basePath;
+
+        BenchmarkPlugin(PluginManager pluginManager, int index) {
+            super(new PluginWrapper(pluginManager,
+                new DefaultPluginDescriptor("plugin" + index, null, null, "0.0.1", null, null, null),
+                null, BenchmarkPlugin.class.getClassLoader()));
+            this.basePath = "/plugin" + index;
+        }
+
+        @Override
+        protected SpringBootstrap createSpringBootstrap() {
+            return null;
+        }
+
+        @Override
+        public String getBasePath() {
+            return basePath;
+        }
+    }
+}
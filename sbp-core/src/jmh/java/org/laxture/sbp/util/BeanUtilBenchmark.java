@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective access by {@link BeanUtil} with cached handles vs. looking up members
+ * from class hierarchy on every call as before. Members are declared by superclass,
+ * like the framework internals sbp integrations reach into.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanUtilBenchmark {
+
+    private Holder holder;
+
+    @Setup
+    public void setup() {
+        holder = new Holder();
+        holder.registry = new Registry();
+    }
+
+    @Benchmark
+    public Object getFieldValueLegacy() {
+        Object registry = legacyGetFieldValue(holder, holder.getClass(), "registry");
+        return legacyGetFieldValue(registry, registry.getClass(), "count");
+    }
+
+    @Benchmark
+    public Object getFieldValueCached() {
+        return BeanUtil.getFieldValue(holder, "registry.count");
+    }
+
+    @Benchmark
+    public void setFieldValueLegacy() {
+        legacySetFieldValue(holder.registry, holder.registry.getClass(), "count", 1);
+    }
+
+    @Benchmark
+    public void setFieldValueCached() {
+        BeanUtil.setFieldValue(holder.registry, "count", 1);
+    }
+
+    @Benchmark
+    public Object callMethodLegacy() throws Exception {
+        return legacyCallMethod(holder.registry, "lookup", "bean");
+    }
+
+    @Benchmark
+    public Object callMethodCached() {
+        return BeanUtil.callMethod(holder.registry, "lookup", "bean");
+    }
+
+    private static Object legacyGetFieldValue(Object target, Class<?> clazz, String fieldName) {
+        try {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (NoSuchFieldException e) {
+            return clazz.getSuperclass() != null
+                ? legacyGetFieldValue(target, clazz.getSuperclass(), fieldName) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void legacySetFieldValue(Object target, Class<?> clazz, String fieldName, Object value) {
+        try {
+            Field field = clazz.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (NoSuchFieldException e) {
+            if (clazz.getSuperclass() == null) throw new RuntimeException("Set field "+fieldName+" failed.", e);
+            legacySetFieldValue(target, clazz.getSuperclass(), fieldName, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Set field "+fieldName+" failed.", e);
+        }
+    }
+
+    private static Object legacyCallMethod(Object target, String methodName, String parameter) throws Exception {
+        Method method;
+        try {
+            method = target.getClass().getMethod(methodName, String.class);
+        } catch (NoSuchMethodException e) {
+            method = null;
+        }
+        for (Class<?> clz = target.getClass(); method == null && clz != Object.class; clz = clz.getSuperclass()) {
+            try {
+                method = clz.getDeclaredMethod(methodName, String.class);
+            } catch (NoSuchMethodException ignored) {}
+        }
+        method.setAccessible(true);
+        return method.invoke(target, parameter);
+    }
+
+    static class AbstractHolder {
+        Registry registry;
+    }
+
+    static class Holder extends AbstractHolder {}
+
+    static class AbstractRegistry {
+        private int count;
+
+        private String lookup(String name) {
+            return name;
+        }
+    }
+
+    static class Registry extends AbstractRegistry {}
+}
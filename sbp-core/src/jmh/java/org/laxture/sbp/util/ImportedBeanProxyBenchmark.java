@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.util;
+
+import net.bytebuddy.implementation.InvocationHandlerAdapter;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdbcTemplate-style call on a bean imported from main application, through proxy
+ * generated by {@link BeanUtil#createDelegatingProxy} vs. proxy forwarding every call
+ * to {@link ProxyInvocationHandler} by reflection as before.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportedBeanProxyBenchmark {
+
+    private static final String SQL = "select name from book where id = ?";
+
+    private BookJdbcTemplate direct;
+
+    private BookJdbcTemplate reflectiveProxy;
+
+    private BookJdbcTemplate delegatingProxy;
+
+    private long id;
+
+    @Setup
+    public void setup() {
+        direct = new BookJdbcTemplate();
+        reflectiveProxy = BeanUtil.createProxy(direct, (source, builder) -> builder
+            .method(ElementMatchers.any())
+            .intercept(InvocationHandlerAdapter.of(new ProxyInvocationHandler(source))));
+        delegatingProxy = BeanUtil.createDelegatingProxy(direct, ElementMatchers.none());
+    }
+
+    @Benchmark
+    public String directCall() {
+        return direct.queryForObject(SQL, String.class, id++ & 0xF);
+    }
+
+    @Benchmark
+    public String reflectiveProxy() {
+        return reflectiveProxy.queryForObject(SQL, String.class, id++ & 0xF);
+    }
+
+    @Benchmark
+    public String delegatingProxy() {
+        return delegatingProxy.queryForObject(SQL, String.class, id++ & 0xF);
+    }
+
+    public static class BookJdbcTemplate {
+
+        private final Map<Object, Object> rows = new HashMap<>();
+
+        public BookJdbcTemplate() {
+            for (long i = 0; i < 16; i++) rows.put(i, "book-" + i);
+        }
+
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            return requiredType.cast(rows.get(args[0]));
+        }
+    }
+}
@@ -174,6 +174,10 @@ public abstract class SpringBootPlugin extends Plugin {
 
     protected abstract SpringBootstrap createSpringBootstrap();
 
+    public SpringBootstrap getSpringBootstrap() {
+        return springBootstrap;
+    }
+
     public GenericApplicationContext getApplicationContext() {
         return (GenericApplicationContext) applicationContext;
     }
@@ -190,16 +194,19 @@ public abstract class SpringBootPlugin extends Plugin {
         Assert.notNull(bean, "bean must not be null");
         beanName = StringUtils.isEmpty(beanName) ? bean.getClass().getName() : beanName;
         getMainApplicationContext().getBeanFactory().registerSingleton(beanName, bean);
+        getPluginManager().markMainBeansModified();
     }
 
     public void unregisterBeanFromMainContext(String beanName) {
         unregisterBeanFromMainContext(getMainApplicationContext(), beanName);
         Assert.notNull(beanName, "bean must not be null");
         ((AbstractAutowireCapableBeanFactory) getMainApplicationContext().getBeanFactory()).destroySingleton(beanName);
+        getPluginManager().markMainBeansModified();
     }
 
     public void unregisterBeanFromMainContext(Object bean) {
         unregisterBeanFromMainContext(getMainApplicationContext(), bean);
+        getPluginManager().markMainBeansModified();
     }
 
     public static void unregisterBeanFromMainContext(GenericApplicationContext mainCtx,
@@ -231,6 +238,18 @@ public abstract class SpringBootPlugin extends Plugin {
         }
     }
 
+    /**
+     * Base path owned by this plugin, declared by `sbp-plugin.base-path` in plugin
+     * configuration. Requests under it are matched against request mappings of this
+     * plugin only. Override it to declare base path programmatically.
+     *
+     * @return null if plugin doesn't declare one.
+     */
+    public String getBasePath() {
+        if (applicationContext == null) return null;
+        return applicationContext.getEnvironment().getProperty("sbp-plugin.base-path");
+    }
+
     public Set<String> getExcludeConfigurations() {
         Set<String> configurations = new HashSet<>();
         for (IPluginConfigurer configurer : this.pluginConfigurers) {
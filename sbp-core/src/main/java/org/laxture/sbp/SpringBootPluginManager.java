@@ -15,21 +15,35 @@
  */
 package org.laxture.sbp;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.laxture.sbp.internal.MainBeanRegistryIndex;
+import org.laxture.sbp.internal.PluginHibernationStats;
+import org.laxture.sbp.internal.PluginLoadingGate;
+import org.laxture.sbp.internal.PluginRouteRegistry;
+import org.laxture.sbp.internal.PluginStartScheduler;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
+import org.laxture.sbp.internal.SpringBootPluginClassLoader;
 import org.laxture.sbp.internal.SpringExtensionFactory;
 import org.laxture.sbp.spring.boot.PluginStartingError;
 import org.laxture.sbp.spring.boot.SbpPluginStateChangedEvent;
 import org.pf4j.*;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.support.GenericApplicationContext;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
  * PluginManager to hold the main ApplicationContext
@@ -38,7 +52,7 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 @Slf4j
 public class SpringBootPluginManager extends DefaultPluginManager
-        implements ApplicationContextAware, InitializingBean {
+        implements ApplicationContextAware, InitializingBean, DisposableBean {
 
     private boolean mainApplicationStarted;
     private GenericApplicationContext mainApplicationContext;
@@ -46,10 +60,29 @@ public class SpringBootPluginManager extends DefaultPluginManager
     private boolean autoStartPlugin = true;
     private String[] profiles;
     private PluginRepository pluginRepository;
-    private final Map<String, PluginStartingError> startingErrors = new HashMap<>();
-
-    @Getter
-    private ReentrantLock loadingLock = new ReentrantLock();
+    private final Map<String, PluginStartingError> startingErrors = new ConcurrentHashMap<>();
+    private int pluginStartParallelism = 1;
+    private Path bootstrapCacheDir;
+    private volatile MainBeanRegistryIndex mainBeanRegistryIndex;
+    // bumped whenever plugin registers/unregisters beans to main app
+    private final AtomicLong mainBeanModifications = new AtomicLong();
+    private final Map<String, List<String>> lazyPlugins = new ConcurrentHashMap<>();
+    // lazy plugins not activated yet
+    private final Set<String> dormantPluginIds = ConcurrentHashMap.newKeySet();
+    // dormant plugins requested while plugins are being started in parallel
+    private final Set<String> deferredActivationPluginIds = ConcurrentHashMap.newKeySet();
+    private Duration pluginIdleTimeout;
+    private final Map<String, Long> lastAccessTimes = new ConcurrentHashMap<>();
+    // dormant plugins evicted for idle, subset of dormantPluginIds
+    private final Set<String> hibernatedPluginIds = ConcurrentHashMap.newKeySet();
+    private final PluginHibernationStats hibernationStats = new PluginHibernationStats();
+    private ScheduledExecutorService hibernator;
+
+    private final PluginLoadingGate loadingGate = new PluginLoadingGate();
+    private final Map<String, PluginLoadingGate> pluginLoadingGates = new ConcurrentHashMap<>();
+    private final Set<String> loadingPluginIds = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock operationLock = new ReentrantLock();
+    private final PluginRouteRegistry routeRegistry = new PluginRouteRegistry();
 
     public SpringBootPluginManager() {
         super();
@@ -92,6 +125,63 @@ public class SpringBootPluginManager extends DefaultPluginManager
         return autoStartPlugin;
     }
 
+    /**
+     * Max number of plugins to be started concurrently by {@link #startPlugins()}.
+     * Plugins are always started after their dependencies. Set to 1 to start
+     * plugins one by one.
+     */
+    public void setPluginStartParallelism(int pluginStartParallelism) {
+        this.pluginStartParallelism = pluginStartParallelism;
+    }
+
+    public int getPluginStartParallelism() {
+        return pluginStartParallelism;
+    }
+
+    /**
+     * Directory to persist plugin bootstrap snapshots. Set to null to disable
+     * bootstrap cache.
+     */
+    public void setBootstrapCacheDir(Path bootstrapCacheDir) {
+        this.bootstrapCacheDir = bootstrapCacheDir;
+    }
+
+    public Path getBootstrapCacheDir() {
+        return bootstrapCacheDir;
+    }
+
+    /**
+     * Plugins to be started on demand instead of along with main app, with request
+     * mapping patterns they serve. A lazy plugin is started on first request to these
+     * patterns, or first lookup of its extensions. Plugins depended by eager plugins
+     * are always started eagerly.
+     */
+    public void setLazyPlugins(Map<String, List<String>> lazyPlugins) {
+        this.lazyPlugins.clear();
+        if (lazyPlugins != null) this.lazyPlugins.putAll(lazyPlugins);
+    }
+
+    public Map<String, List<String>> getLazyPlugins() {
+        return Collections.unmodifiableMap(lazyPlugins);
+    }
+
+    /**
+     * Plugins without request or extension lookup for this period are stopped,
+     * and resumed on next access like lazy plugins. Plugins depended by other started
+     * plugins are never stopped. Set to null to disable idle hibernation.
+     */
+    public void setPluginIdleTimeout(Duration pluginIdleTimeout) {
+        this.pluginIdleTimeout = pluginIdleTimeout;
+    }
+
+    public Duration getPluginIdleTimeout() {
+        return pluginIdleTimeout;
+    }
+
+    public PluginHibernationStats getHibernationStats() {
+        return hibernationStats;
+    }
+
     public void setMainApplicationStarted(boolean mainApplicationStarted) {
         this.mainApplicationStarted = mainApplicationStarted;
     }
@@ -120,6 +210,29 @@ public class SpringBootPluginManager extends DefaultPluginManager
         return mainApplicationContext;
     }
 
+    /**
+     * Snapshot of main app bean registry, shared by plugins starting in the same batch
+     * to import beans from main app. It's rebuilt once main app is refreshed or has
+     * bean definitions or singletons changed.
+     */
+    public MainBeanRegistryIndex getMainBeanRegistryIndex() {
+        MainBeanRegistryIndex index = mainBeanRegistryIndex;
+        long modifications = mainBeanModifications.get();
+        if (index == null || index.isStale(mainApplicationContext, modifications)) {
+            index = new MainBeanRegistryIndex(mainApplicationContext, modifications);
+            mainBeanRegistryIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Invalidate {@link MainBeanRegistryIndex}, called once plugin registers or
+     * unregisters singletons of main app.
+     */
+    public void markMainBeansModified() {
+        mainBeanModifications.incrementAndGet();
+    }
+
     public boolean isMainApplicationStarted() {
         return mainApplicationStarted;
     }
@@ -129,10 +242,24 @@ public class SpringBootPluginManager extends DefaultPluginManager
      */
     @Override
     public void afterPropertiesSet() {
-        if (this.autoStartPlugin) loadingLock.lock();
+        if (this.autoStartPlugin) lockLoading();
         loadPlugins();
+        if (isIdleHibernationEnabled()) {
+            long period = Math.min(60_000, Math.max(1000, pluginIdleTimeout.toMillis() / 4));
+            hibernator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sbp-plugin-hibernator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            hibernator.scheduleWithFixedDelay(this::hibernateIdlePlugins, period, period, TimeUnit.MILLISECONDS);
+        }
    }
 
+    @Override
+    public void destroy() {
+        if (hibernator != null) hibernator.shutdownNow();
+    }
+
     public PluginStartingError getPluginStartingError(String pluginId) {
         return startingErrors.get(pluginId);
     }
@@ -141,42 +268,321 @@ public class SpringBootPluginManager extends DefaultPluginManager
     // Plugin State Manipulation
     //*************************************************************************
 
+    public ReentrantLock getLoadingLock() {
+        return loadingGate.getLock();
+    }
+
+    public PluginLoadingGate getLoadingGate() {
+        return loadingGate;
+    }
+
+    /**
+     * Resolve the gate a request should wait for. If all plugins are loading,
+     * every request is held. Otherwise, only requests bound for the plugin
+     * being loaded are held.
+     *
+     * @param lookupPath request path within application
+     * @return null if request doesn't need to wait.
+     */
+    public PluginLoadingGate getLoadingGate(String lookupPath) {
+        if (loadingGate.isLocked()) return loadingGate;
+        if (loadingPluginIds.isEmpty()) return null;
+        String pluginId = routeRegistry.resolve(lookupPath, loadingPluginIds);
+        return pluginId != null ? pluginLoadingGates.get(pluginId) : null;
+    }
+
+    public PluginRouteRegistry getRouteRegistry() {
+        return routeRegistry;
+    }
+
     public boolean isLoading() {
-        return loadingLock.isLocked();
+        return loadingGate.isLocked();
     }
 
     public void releaseLoadingLock() {
-        loadingLock.unlock();
+        unlockLoading();
+    }
+
+    private void lockLoading() {
+        checkNotStarterThread();
+        operationLock.lock();
+        loadingGate.lock();
+    }
+
+    private void unlockLoading() {
+        // release operation lock first, so waiters are not resumed within it
+        operationLock.unlock();
+        loadingGate.unlock();
     }
 
+    /**
+     * Only requests bound for this plugin are held while it's loading.
+     */
+    private void lockPluginLoading(String pluginId) {
+        checkNotStarterThread();
+        operationLock.lock();
+        pluginLoadingGates.computeIfAbsent(pluginId, id -> new PluginLoadingGate()).lock();
+        loadingPluginIds.add(pluginId);
+    }
+
+    private void checkNotStarterThread() {
+        if (PluginStartScheduler.isStarterThread()) {
+            throw new IllegalStateException("Plugin operation is not allowed while plugins are being started in parallel");
+        }
+    }
+
+    private void unlockPluginLoading(String pluginId) {
+        PluginLoadingGate gate = pluginLoadingGates.get(pluginId);
+        if (gate.getLock().getHoldCount() == 1) loadingPluginIds.remove(pluginId);
+        operationLock.unlock();
+        gate.unlock();
+    }
+
+    /**
+     * Caller must hold loading lock.
+     */
     private void doStartPlugins() {
-        loadingLock.lock();
         long ts = System.currentTimeMillis();
 
+        Set<String> lazyPluginIds = resolveLazyPluginIds();
+        List<PluginWrapper> pluginsToStart = new ArrayList<>();
         for (PluginWrapper pluginWrapper : resolvedPlugins) {
             PluginState pluginState = pluginWrapper.getPluginState();
             if ((PluginState.DISABLED != pluginState) && (PluginState.STARTED != pluginState)) {
                 if (pluginWrapper.getPlugin() == null) {
-                    loadingLock.unlock();
                     throw new IllegalArgumentException("pluginId " + pluginWrapper.getPluginId() + " doesn't existed.");
                 }
-                try {
-                    pluginWrapper.getPlugin().start();
-                    pluginWrapper.setPluginState(PluginState.STARTED);
-                    startedPlugins.add(pluginWrapper);
+                if (lazyPluginIds.contains(pluginWrapper.getPluginId())) {
+                    makeDormant(pluginWrapper.getPluginId());
+                    continue;
+                }
+                pluginsToStart.add(pluginWrapper);
+            }
+        }
 
-                    firePluginStateEvent(new PluginStateEvent(this, pluginWrapper, pluginState));
-                } catch (Exception e) {
-                    log.error(e.getMessage(), e);
-                    startingErrors.put(pluginWrapper.getPluginId(), PluginStartingError.of(
-                            pluginWrapper.getPluginId(), e.getMessage(), e.toString()));
-                    SpringBootPlugin.releaseLegacyResources(pluginWrapper, mainApplicationContext);
+        long criticalPathTime = new PluginStartScheduler(pluginsToStart, pluginStartParallelism)
+            .run(this::doStartResolvedPlugin);
+        // activations requested by plugins while being started in parallel
+        for (String pluginId : new ArrayList<>(deferredActivationPluginIds)) {
+            deferredActivationPluginIds.remove(pluginId);
+            activatePlugin(pluginId);
+        }
+
+        log.info("[SBP] {} plugins are started in {}ms (critical path {}ms). {} failed. {} lazy plugins are dormant",
+                getPlugins(PluginState.STARTED).size(), System.currentTimeMillis() - ts,
+                criticalPathTime, startingErrors.size(), dormantPluginIds.size());
+    }
+
+    /**
+     * Lazy plugins excluding those depended by eager plugins.
+     */
+    private Set<String> resolveLazyPluginIds() {
+        if (lazyPlugins.isEmpty()) return Collections.emptySet();
+        Set<String> lazyPluginIds = new HashSet<>(lazyPlugins.keySet());
+        // resolvedPlugins are in dependency order, walk dependents first
+        for (int i = resolvedPlugins.size() - 1; i >= 0; i--) {
+            PluginWrapper pluginWrapper = resolvedPlugins.get(i);
+            if (lazyPluginIds.contains(pluginWrapper.getPluginId())) continue;
+            for (PluginDependency dependency : pluginWrapper.getDescriptor().getDependencies()) {
+                lazyPluginIds.remove(dependency.getPluginId());
+            }
+        }
+        return lazyPluginIds;
+    }
+
+    private void makeDormant(String pluginId) {
+        // before plugin is started, route patterns declared are its placeholder mappings
+        if (!routeRegistry.contains(pluginId)) {
+            routeRegistry.register(pluginId, lazyPlugins.getOrDefault(pluginId, Collections.emptyList()));
+        }
+        dormantPluginIds.add(pluginId);
+    }
+
+    public boolean isDormant(String pluginId) {
+        return dormantPluginIds.contains(pluginId);
+    }
+
+    /**
+     * @return the dormant plugin serving the request, or null if no dormant plugin serves it.
+     */
+    public String resolveDormantPlugin(String lookupPath) {
+        if (dormantPluginIds.isEmpty()) return null;
+        return routeRegistry.resolve(lookupPath, dormantPluginIds);
+    }
+
+    /**
+     * Start a dormant plugin. Concurrent activations of the same plugin are
+     * coalesced, only the first one starts it and the rest wait for it.
+     * Activations requested by plugins being started in parallel are deferred
+     * until the whole batch is started.
+     */
+    public PluginState activatePlugin(String pluginId) {
+        PluginWrapper plugin = getPlugin(pluginId);
+        if (plugin == null) {
+            throw new IllegalArgumentException("pluginId " + pluginId + " doesn't existed.");
+        }
+        if (!dormantPluginIds.contains(pluginId)) return plugin.getPluginState();
+        if (PluginStartScheduler.isStarterThread()) {
+            // batch starting thread holds the lock, activate it once the batch is done
+            log.debug("Activation of plugin {} is deferred until plugins are started", pluginId);
+            deferredActivationPluginIds.add(pluginId);
+            return plugin.getPluginState();
+        }
+        try {
+            lockPluginLoading(pluginId);
+            // double check, it might be activated while waiting for the lock
+            if (dormantPluginIds.contains(pluginId)) {
+                long ts = System.currentTimeMillis();
+                PluginState pluginState = doStartPlugin(pluginId, true);
+                // don't retry failed activation on every request
+                dormantPluginIds.remove(pluginId);
+                long elapsed = System.currentTimeMillis() - ts;
+                if (hibernatedPluginIds.remove(pluginId)) hibernationStats.recordResume(elapsed);
+                if (isIdleHibernationEnabled()) lastAccessTimes.put(pluginId, System.currentTimeMillis());
+                log.info("[SBP] Plugin {} is activated in {}ms, {}", pluginId, elapsed, pluginState);
+            }
+            return plugin.getPluginState();
+        } finally {
+            unlockPluginLoading(pluginId);
+        }
+    }
+
+    /**
+     * Activate dormant plugins providing extensions of given type.
+     */
+    private void activatePluginsFor(Class<?> extensionType, String pluginIdFilter) {
+        if (dormantPluginIds.isEmpty()) return;
+        for (String pluginId : new ArrayList<>(dormantPluginIds)) {
+            if (pluginIdFilter != null && !pluginIdFilter.equals(pluginId)) continue;
+            ClassLoader classLoader = getPluginClassLoader(pluginId);
+            for (String extensionClassName : getExtensionClassNames(pluginId)) {
+                try {
+                    if (extensionType.isAssignableFrom(classLoader.loadClass(extensionClassName))) {
+                        activatePlugin(pluginId);
+                        break;
+                    }
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.debug("Couldn't load extension class {} of plugin {}", extensionClassName, pluginId);
                 }
             }
         }
+    }
+
+    @Override
+    public <T> List<T> getExtensions(Class<T> type) {
+        activatePluginsFor(type, null);
+        return recordExtensionAccess(super.getExtensions(type));
+    }
+
+    @Override
+    public <T> List<T> getExtensions(Class<T> type, String pluginId) {
+        activatePluginsFor(type, pluginId);
+        return recordExtensionAccess(super.getExtensions(type, pluginId));
+    }
+
+    @Override
+    public <T> List<Class<? extends T>> getExtensionClasses(Class<T> type) {
+        activatePluginsFor(type, null);
+        return super.getExtensionClasses(type);
+    }
+
+    //*************************************************************************
+    // Idle Hibernation
+    //*************************************************************************
+
+    private boolean isIdleHibernationEnabled() {
+        return pluginIdleTimeout != null && !pluginIdleTimeout.isZero() && !pluginIdleTimeout.isNegative();
+    }
+
+    /**
+     * Mark the started plugin serving the request as accessed.
+     */
+    public void recordAccess(String lookupPath) {
+        if (!isIdleHibernationEnabled() || lastAccessTimes.isEmpty()) return;
+        String pluginId = routeRegistry.resolve(lookupPath, lastAccessTimes.keySet());
+        if (pluginId != null) lastAccessTimes.put(pluginId, System.currentTimeMillis());
+    }
+
+    private <T> List<T> recordExtensionAccess(List<T> extensions) {
+        if (!isIdleHibernationEnabled()) return extensions;
+        long now = System.currentTimeMillis();
+        for (T extension : extensions) {
+            PluginWrapper plugin = whichPlugin(extension.getClass());
+            if (plugin != null) lastAccessTimes.put(plugin.getPluginId(), now);
+        }
+        return extensions;
+    }
+
+    private void hibernateIdlePlugins() {
+        if (!mainApplicationStarted || loadingGate.isLocked()) return;
+        try {
+            long now = System.currentTimeMillis();
+            for (PluginWrapper plugin : getPlugins(PluginState.STARTED)) {
+                // plugin is first seen started, count from now
+                long lastAccess = lastAccessTimes.computeIfAbsent(plugin.getPluginId(), id -> now);
+                if (now - lastAccess < pluginIdleTimeout.toMillis()) continue;
+                if (hasStartedDependents(plugin.getPluginId())) continue;
+                hibernatePlugin(plugin.getPluginId());
+            }
+        } catch (Exception e) {
+            log.error("Hibernate idle plugins failed. " + e.getMessage(), e);
+        }
+    }
+
+    private boolean hasStartedDependents(String pluginId) {
+        for (PluginWrapper plugin : getPlugins(PluginState.STARTED)) {
+            for (PluginDependency dependency : plugin.getDescriptor().getDependencies()) {
+                if (dependency.getPluginId().equals(pluginId)) return true;
+            }
+        }
+        return false;
+    }
 
-        log.info("[SBP] {} plugins are started in {}ms. {} failed", getPlugins(PluginState.STARTED).size(),
-                System.currentTimeMillis() - ts, startingErrors.size());
+    /**
+     * Stop plugin and keep its class loader and request mapping patterns, so it
+     * could be resumed on next request or extension lookup.
+     */
+    public void hibernatePlugin(String pluginId) {
+        try {
+            lockPluginLoading(pluginId);
+            PluginWrapper plugin = getPlugin(pluginId);
+            if (plugin == null || plugin.getPluginState() != PluginState.STARTED) return;
+            // double check, it might be accessed while waiting for the lock
+            Long lastAccess = lastAccessTimes.get(pluginId);
+            if (isIdleHibernationEnabled() && lastAccess != null
+                    && System.currentTimeMillis() - lastAccess < pluginIdleTimeout.toMillis()) return;
+
+            long ts = System.currentTimeMillis();
+            PluginState pluginState = doStopPlugin(pluginId, true);
+            if (pluginState == PluginState.STARTED) return;
+            lastAccessTimes.remove(pluginId);
+            hibernatedPluginIds.add(pluginId);
+            makeDormant(pluginId);
+            long elapsed = System.currentTimeMillis() - ts;
+            hibernationStats.recordEviction(elapsed);
+            log.info("[SBP] Plugin {} is hibernated for idle in {}ms", pluginId, elapsed);
+        } finally {
+            unlockPluginLoading(pluginId);
+        }
+    }
+
+    private void doStartResolvedPlugin(PluginWrapper pluginWrapper) {
+        PluginState pluginState = pluginWrapper.getPluginState();
+        try {
+            pluginWrapper.getPlugin().start();
+            dormantPluginIds.remove(pluginWrapper.getPluginId());
+            hibernatedPluginIds.remove(pluginWrapper.getPluginId());
+            synchronized (startedPlugins) {
+                pluginWrapper.setPluginState(PluginState.STARTED);
+                startedPlugins.add(pluginWrapper);
+                firePluginStateEvent(new PluginStateEvent(this, pluginWrapper, pluginState));
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            startingErrors.put(pluginWrapper.getPluginId(), PluginStartingError.of(
+                    pluginWrapper.getPluginId(), e.getMessage(), e.toString()));
+            SpringBootPlugin.releaseLegacyResources(pluginWrapper, mainApplicationContext);
+        }
     }
 
     private void doStopPlugins() {
@@ -204,13 +610,76 @@ public class SpringBootPluginManager extends DefaultPluginManager
         }
     }
 
+    @Override
+    protected PluginWrapper loadPluginFromPath(Path pluginPath) {
+        try {
+            return super.loadPluginFromPath(pluginPath);
+        } finally {
+            // optional dependency might be available now
+            invalidateDependencyCaches();
+        }
+    }
+
+    @Override
+    protected boolean unloadPlugin(String pluginId, boolean unloadDependents) {
+        try {
+            dormantPluginIds.remove(pluginId);
+            hibernatedPluginIds.remove(pluginId);
+            lastAccessTimes.remove(pluginId);
+            boolean unloaded = super.unloadPlugin(pluginId, unloadDependents);
+            if (unloaded && mainApplicationContext != null) {
+                // drop static resources extracted from plugin jar
+                mainApplicationContext.getBeanProvider(PluginStaticResourceStore.class)
+                    .ifAvailable(store -> store.prune(pluginId));
+            }
+            return unloaded;
+        } finally {
+            invalidateDependencyCaches();
+        }
+    }
+
+    @Override
+    public boolean unloadPlugin(String pluginId) {
+        boolean unloaded = super.unloadPlugin(pluginId);
+        // dependents are unloaded along
+        if (unloaded) routeRegistry.retain(getPlugins().stream()
+            .map(PluginWrapper::getPluginId).collect(Collectors.toSet()));
+        return unloaded;
+    }
+
+    /**
+     * Drop routes of plugins stopped explicitly, including dependents stopped along.
+     * Routes of plugins being restarted, dormant or hibernated are kept, so requests
+     * bound for them could still be held or activate them.
+     */
+    private void unregisterStoppedRoutes() {
+        for (PluginWrapper plugin : getPlugins()) {
+            String pluginId = plugin.getPluginId();
+            if (plugin.getPluginState() != PluginState.STARTED
+                    && !loadingPluginIds.contains(pluginId)
+                    && !dormantPluginIds.contains(pluginId)
+                    && !hibernatedPluginIds.contains(pluginId)) {
+                routeRegistry.unregister(pluginId);
+            }
+        }
+    }
+
+    private void invalidateDependencyCaches() {
+        for (PluginWrapper plugin : getPlugins()) {
+            ClassLoader classLoader = plugin.getPluginClassLoader();
+            if (classLoader instanceof SpringBootPluginClassLoader) {
+                ((SpringBootPluginClassLoader) classLoader).invalidateDependencyCache();
+            }
+        }
+    }
+
     private PluginState doStartPlugin(String pluginId, boolean sendEvent) {
         PluginWrapper plugin = getPlugin(pluginId);
         PluginState previousState = plugin.getPluginState();
         try {
             PluginState pluginState = super.startPlugin(pluginId);
             if (sendEvent && previousState != pluginState) {
-                mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext));
+                mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext, pluginId));
             }
             return pluginState;
         } catch (Exception e) {
@@ -232,7 +701,7 @@ public class SpringBootPluginManager extends DefaultPluginManager
             PluginState pluginState = super.stopPlugin(pluginId);
             SpringBootPlugin.releaseLegacyResources(plugin, mainApplicationContext);
             if (sendEvent && previousState != pluginState) {
-                mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext));
+                mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext, pluginId));
             }
             return pluginState;
         } catch (Exception e) {
@@ -246,77 +715,91 @@ public class SpringBootPluginManager extends DefaultPluginManager
     @Override
     public void startPlugins() {
         try {
+            lockLoading();
             doStartPlugins();
             mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext));
         } finally {
-            loadingLock.unlock();
+            unlockLoading();
         }
     }
 
     @Override
     public PluginState startPlugin(String pluginId) {
         try {
-            loadingLock.lock();
+            lockPluginLoading(pluginId);
+            dormantPluginIds.remove(pluginId);
             return doStartPlugin(pluginId, true);
         } finally {
-            loadingLock.unlock();
+            unlockPluginLoading(pluginId);
         }
     }
 
     @Override
     public void stopPlugins() {
         try {
-            loadingLock.lock();
+            lockLoading();
+            dormantPluginIds.clear();
+            hibernatedPluginIds.clear();
+            lastAccessTimes.clear();
             doStopPlugins();
+            routeRegistry.clear();
             mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext));
         } finally {
-            loadingLock.unlock();
+            unlockLoading();
         }
     }
 
     @Override
     public PluginState stopPlugin(String pluginId) {
         try {
-            loadingLock.lock();
-            return doStopPlugin(pluginId, true);
+            lockPluginLoading(pluginId);
+            // stopped explicitly, don't activate it on demand
+            dormantPluginIds.remove(pluginId);
+            hibernatedPluginIds.remove(pluginId);
+            lastAccessTimes.remove(pluginId);
+            PluginState pluginState = doStopPlugin(pluginId, true);
+            routeRegistry.unregister(pluginId);
+            unregisterStoppedRoutes();
+            return pluginState;
         } finally {
-            loadingLock.unlock();
+            unlockPluginLoading(pluginId);
         }
     }
 
     public void restartPlugins() {
         try {
-            loadingLock.lock();
+            lockLoading();
             doStopPlugins();
             doStartPlugins();
         } finally {
-            loadingLock.unlock();
+            unlockLoading();
         }
     }
 
     public PluginState restartPlugin(String pluginId) {
         try {
-            loadingLock.lock();
+            lockPluginLoading(pluginId);
             PluginState pluginState = doStopPlugin(pluginId, false);
             if (pluginState != PluginState.STARTED) doStartPlugin(pluginId, false);
             doStartPlugin(pluginId, false);
-            mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext));
+            mainApplicationContext.publishEvent(new SbpPluginStateChangedEvent(mainApplicationContext, pluginId));
             return pluginState;
         } finally {
-            loadingLock.unlock();
+            unlockPluginLoading(pluginId);
         }
     }
 
     public void reloadPlugins(boolean restartStartedOnly) {
         try {
-            loadingLock.lock();
+            lockLoading();
             doStopPlugins();
             List<String> startedPluginIds = new ArrayList<>();
             getPlugins().forEach(plugin -> {
                 if (plugin.getPluginState() == PluginState.STARTED) {
                     startedPluginIds.add(plugin.getPluginId());
                 }
-                unloadPlugin(plugin.getPluginId());
+                // keep routes, requests bound for plugins are held until they are reloaded
+                unloadPlugin(plugin.getPluginId(), true);
             });
             loadPlugins();
             if (restartStartedOnly) {
@@ -331,13 +814,13 @@ public class SpringBootPluginManager extends DefaultPluginManager
                 startPlugins();
             }
         } finally {
-            loadingLock.unlock();
+            unlockLoading();
         }
     }
 
     public PluginState reloadPlugins(String pluginId) {
         try {
-            loadingLock.lock();
+            lockPluginLoading(pluginId);
             PluginWrapper plugin = getPlugin(pluginId);
             doStopPlugin(pluginId, false);
             unloadPlugin(pluginId, false);
@@ -349,7 +832,7 @@ public class SpringBootPluginManager extends DefaultPluginManager
 
             return doStartPlugin(pluginId, true);
         } finally {
-            loadingLock.unlock();
+            unlockPluginLoading(pluginId);
         }
     }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot of bean names registered in main app, shared by all plugins importing
+ * beans from main {@link org.springframework.context.ApplicationContext}, so
+ * missing beans are told without asking main bean factory one by one.
+ *
+ * Snapshot is stale once main app is refreshed, has bean definitions changed, or has
+ * singletons registered/unregistered, by plugins as counted by
+ * {@link org.laxture.sbp.SpringBootPluginManager#markMainBeansModified()} or by anything
+ * else as told by singleton count.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class MainBeanRegistryIndex {
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    private final long startupDate;
+
+    private final int beanDefinitionCount;
+
+    private final int singletonCount;
+
+    // modifications made by plugins when the snapshot is taken
+    private final long modifications;
+
+    // bean names, aliases and manually registered singletons
+    private final Set<String> beanNames = new HashSet<>();
+
+    // bean type -> bean names, only types visible to main app are memorized
+    private final Map<Class<?>, String[]> beanNamesByType = new ConcurrentHashMap<>();
+
+    public MainBeanRegistryIndex(ConfigurableApplicationContext applicationContext, long modifications) {
+        this.modifications = modifications;
+        this.beanFactory = applicationContext.getBeanFactory();
+        this.startupDate = applicationContext.getStartupDate();
+        this.beanDefinitionCount = beanFactory.getBeanDefinitionCount();
+        this.singletonCount = beanFactory.getSingletonCount();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            beanNames.add(beanName);
+            Collections.addAll(beanNames, beanFactory.getAliases(beanName));
+        }
+        Collections.addAll(beanNames, beanFactory.getSingletonNames());
+    }
+
+    public boolean isStale(ConfigurableApplicationContext applicationContext, long modifications) {
+        return this.modifications != modifications
+            || applicationContext.getStartupDate() != startupDate
+            || applicationContext.getBeanFactory().getBeanDefinitionCount() != beanDefinitionCount
+            || applicationContext.getBeanFactory().getSingletonCount() != singletonCount;
+    }
+
+    public boolean containsBean(String beanName) {
+        if (beanNames.contains(BeanFactoryUtils.transformedBeanName(beanName))) return true;
+        // beans of parent context are not indexed
+        BeanFactory parentBeanFactory = beanFactory.getParentBeanFactory();
+        return parentBeanFactory != null && parentBeanFactory.containsBean(beanName);
+    }
+
+    public String[] getBeanNamesForType(Class<?> beanClass) {
+        String[] names = beanNamesByType.get(beanClass);
+        if (names != null) return names;
+        names = beanFactory.getBeanNamesForType(beanClass);
+        if (ClassUtils.isCacheSafe(beanClass, beanFactory.getBeanClassLoader())) {
+            beanNamesByType.put(beanClass, names);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pf4j.PluginWrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Outcome of plugin auto-configuration evaluation persisted from last start.
+ * It is keyed by checksum of plugin jar plus fingerprint of main application,
+ * any change on them invalidates the snapshot.
+ *
+ * A hit snapshot tells which auto-configurations were skipped by their class conditions,
+ * so they could be filtered out straight away without loading classes and
+ * evaluating conditions again. Only class conditions are remembered, since they
+ * are determined by classpath alone, while other conditions depend on properties
+ * and beans which might vary from start to start.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@Slf4j
+public class PluginBootstrapSnapshot {
+
+    private static final String PROP_KEY = "key";
+    private static final String PROP_SKIPPED_CONFIGURATIONS = "skippedConfigurations";
+
+    private static volatile String classpathFingerprint;
+
+    private final String pluginId;
+    private final Path file;
+    private final String key;
+    private final Set<String> skippedConfigurations;
+
+    private PluginBootstrapSnapshot(String pluginId, Path file, String key, Set<String> skippedConfigurations) {
+        this.pluginId = pluginId;
+        this.file = file;
+        this.key = key;
+        this.skippedConfigurations = skippedConfigurations;
+    }
+
+    /**
+     * Load snapshot of plugin from cache directory. Returned snapshot is not hit
+     * if it doesn't exist or is outdated.
+     */
+    public static PluginBootstrapSnapshot load(Path cacheDir, PluginWrapper plugin, String mainAppFingerprint) {
+        Path file = cacheDir.resolve(plugin.getPluginId() + ".properties");
+        String key = null;
+        try {
+            key = digest(plugin.getPluginPath()) + ":" + digest(mainAppFingerprint);
+        } catch (Exception e) {
+            log.debug("Couldn't compute bootstrap snapshot key of plugin {}. {}",
+                    plugin.getPluginId(), e.getMessage());
+        }
+        if (key == null || !Files.isRegularFile(file)) {
+            return new PluginBootstrapSnapshot(plugin.getPluginId(), file, key, null);
+        }
+
+        Properties props = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            props.load(is);
+        } catch (IOException e) {
+            log.debug("Couldn't read bootstrap snapshot {}. {}", file, e.getMessage());
+            return new PluginBootstrapSnapshot(plugin.getPluginId(), file, key, null);
+        }
+        if (!key.equals(props.getProperty(PROP_KEY))) {
+            return new PluginBootstrapSnapshot(plugin.getPluginId(), file, key, null);
+        }
+        Set<String> skippedConfigurations = Arrays.stream(
+                        props.getProperty(PROP_SKIPPED_CONFIGURATIONS, "").split(","))
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        return new PluginBootstrapSnapshot(plugin.getPluginId(), file, key, skippedConfigurations);
+    }
+
+    public boolean isHit() {
+        return skippedConfigurations != null;
+    }
+
+    public boolean isSkipped(String autoConfigurationClass) {
+        return isHit() && skippedConfigurations.contains(autoConfigurationClass);
+    }
+
+    /**
+     * Persist auto-configurations skipped in this start. Snapshot is only saved when
+     * it's not hit, since filtered configurations are not evaluated at all then.
+     */
+    public void save(Collection<String> skippedConfigurations) {
+        if (isHit() || key == null) return;
+        Properties props = new Properties();
+        props.setProperty(PROP_KEY, key);
+        props.setProperty(PROP_SKIPPED_CONFIGURATIONS, skippedConfigurations.stream()
+                .sorted().collect(Collectors.joining(",")));
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmpFile = Files.createTempFile(file.getParent(), pluginId, ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmpFile)) {
+                props.store(os, "Bootstrap snapshot of plugin " + pluginId);
+            }
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Bootstrap snapshot of plugin {} is saved, {} configurations skipped",
+                    pluginId, skippedConfigurations.size());
+        } catch (IOException e) {
+            log.warn("Couldn't save bootstrap snapshot of plugin {}. {}", pluginId, e.getMessage());
+        }
+    }
+
+    /**
+     * Checksum of plugin jar. For plugin directory in development mode, file names,
+     * sizes and modified times are digested instead of content.
+     */
+    private static String digest(Path pluginPath) throws IOException, NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        if (Files.isDirectory(pluginPath)) {
+            try (Stream<Path> paths = Files.walk(pluginPath)) {
+                for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                    md.update((pluginPath.relativize(path) + ":" + Files.size(path) + ":"
+                            + Files.getLastModifiedTime(path).toMillis() + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } else {
+            try (InputStream is = Files.newInputStream(pluginPath)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) md.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * Fingerprint of main application classpath, computed once since it doesn't change
+     * at runtime. Entries of `java.class.path` are fingerprinted by sizes and modified
+     * times, directories by file names within, so rebuilt fat jar or added classes in
+     * development mode are told. Nested jars of fat jar are told by their URLs.
+     */
+    public static String getClasspathFingerprint(ClassLoader mainClassLoader) {
+        String fingerprint = classpathFingerprint;
+        if (fingerprint == null) {
+            StringBuilder sb = new StringBuilder();
+            for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+                if (entry.isEmpty()) continue;
+                sb.append(entry).append(':').append(fingerprintClasspathEntry(Path.of(entry))).append('\n');
+            }
+            for (ClassLoader cl = mainClassLoader; cl != null; cl = cl.getParent()) {
+                if (!(cl instanceof URLClassLoader)) continue;
+                for (URL url : ((URLClassLoader) cl).getURLs()) sb.append(url).append('\n');
+            }
+            fingerprint = sb.toString();
+            classpathFingerprint = fingerprint;
+        }
+        return fingerprint;
+    }
+
+    private static String fingerprintClasspathEntry(Path entry) {
+        try {
+            if (Files.isDirectory(entry)) {
+                try (Stream<Path> paths = Files.walk(entry)) {
+                    return digest(paths.filter(Files::isRegularFile)
+                            .map(path -> entry.relativize(path).toString())
+                            .sorted().collect(Collectors.joining(",")));
+                }
+            } else if (Files.isRegularFile(entry)) {
+                return Files.size(entry) + ":" + Files.getLastModifiedTime(entry).toMillis();
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.debug("Couldn't fingerprint classpath entry {}. {}", entry, e.getMessage());
+        }
+        return "";
+    }
+
+    private static String digest(String text) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
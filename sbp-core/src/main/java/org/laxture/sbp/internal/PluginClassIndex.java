@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * Names of classes and resources packaged in plugin classpath, i.e. jar files and
+ * classes directories. It's built once per plugin class loader, so plugin class
+ * loader could tell whether a class/resource is owned by the plugin without
+ * opening jar entries or creating {@link ClassNotFoundException}.
+ *
+ * Directory entries are indexed along, e.g. `templates/`, so resource lookup of
+ * directories works as regular class loader does.
+ *
+ * Classes directories are not indexed, but checked on file system for each query,
+ * since they are changed by recompiling in development mode without rebuilding
+ * plugin class loader.
+ *
+ * If any classpath entry couldn't be indexed, the index is incomplete and
+ * answers every query positively, to fall back to regular lookup.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginClassIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PluginClassIndex.class);
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private static final Pattern VERSIONED_ENTRY_PREFIX = Pattern.compile("^META-INF/versions/\\d+/");
+
+    private final Set<String> classNames = new HashSet<>();
+
+    private final Set<String> resourceNames = new HashSet<>();
+
+    private final List<Path> directories = new ArrayList<>();
+
+    private boolean complete = true;
+
+    private PluginClassIndex() {}
+
+    public static PluginClassIndex build(URL[] urls) {
+        PluginClassIndex index = new PluginClassIndex();
+        for (URL url : urls) {
+            try {
+                if (!"file".equals(url.getProtocol())) {
+                    index.complete = false;
+                    continue;
+                }
+                File file = new File(url.toURI());
+                if (file.isDirectory()) {
+                    index.directories.add(file.toPath());
+                } else if (file.isFile()) {
+                    index.indexJar(file);
+                }
+            } catch (Exception e) {
+                log.debug("Couldn't index plugin classpath {}. {}", url, e.getMessage());
+                index.complete = false;
+            }
+        }
+        return index;
+    }
+
+    private void indexJar(File file) throws IOException {
+        try (JarFile jarFile = new JarFile(file)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                addEntry(VERSIONED_ENTRY_PREFIX.matcher(entry.getName()).replaceFirst(""));
+            }
+        }
+    }
+
+    private void addEntry(String name) {
+        if (name.endsWith(CLASS_FILE_SUFFIX)) {
+            classNames.add(name.substring(0, name.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.'));
+        }
+        if (name.endsWith("/")) name = name.substring(0, name.length() - 1);
+        // parent directories might not be listed as jar entries
+        while (!name.isEmpty() && resourceNames.add(name)) {
+            int slash = name.lastIndexOf('/');
+            name = slash < 0 ? "" : name.substring(0, slash);
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean containsClass(String className) {
+        return !complete || classNames.contains(className)
+            || existsInDirectories(toClassResource(className));
+    }
+
+    public boolean containsResource(String name) {
+        if (!complete) return true;
+        String path = name.startsWith("/") ? name.substring(1) : name;
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        return path.isEmpty() || resourceNames.contains(path) || existsInDirectories(path);
+    }
+
+    private boolean existsInDirectories(String path) {
+        for (Path directory : directories) {
+            try {
+                if (Files.exists(directory.resolve(path))) return true;
+            } catch (InvalidPathException ignored) {}
+        }
+        return false;
+    }
+
+    public static String toClassResource(String className) {
+        return className.replace('.', '/') + CLASS_FILE_SUFFIX;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latencies of idle plugins evicted and resumed.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginHibernationStats {
+
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong evictionTotalMillis = new AtomicLong();
+    private final AtomicLong resumeCount = new AtomicLong();
+    private final AtomicLong resumeTotalMillis = new AtomicLong();
+    private final AtomicLong resumeMaxMillis = new AtomicLong();
+
+    public void recordEviction(long millis) {
+        evictionCount.incrementAndGet();
+        evictionTotalMillis.addAndGet(millis);
+    }
+
+    public void recordResume(long millis) {
+        resumeCount.incrementAndGet();
+        resumeTotalMillis.addAndGet(millis);
+        resumeMaxMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getEvictionTotalMillis() {
+        return evictionTotalMillis.get();
+    }
+
+    public long getResumeCount() {
+        return resumeCount.get();
+    }
+
+    public long getResumeTotalMillis() {
+        return resumeTotalMillis.get();
+    }
+
+    public long getResumeMaxMillis() {
+        return resumeMaxMillis.get();
+    }
+
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        long evictions = getEvictionCount();
+        long resumes = getResumeCount();
+        map.put("evictionCount", evictions);
+        map.put("evictionAvgMillis", evictions == 0 ? 0 : getEvictionTotalMillis() / evictions);
+        map.put("resumeCount", resumes);
+        map.put("resumeAvgMillis", resumes == 0 ? 0 : getResumeTotalMillis() / resumes);
+        map.put("resumeMaxMillis", getResumeMaxMillis());
+        return map;
+    }
+}
@@ -20,6 +20,8 @@ import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author <a href="https://github.com/hank-cp">Hank CP</a>
@@ -28,14 +30,53 @@ public class PluginListableBeanFactory extends DefaultListableBeanFactory {
 
     private ClassLoader classLoader;
 
+    // bean name -> class loaded by bean name, empty if bean name is not a class name
+    private final Map<String, Optional<Class<?>>> beanNameClasses = new ConcurrentHashMap<>();
+
     public PluginListableBeanFactory(ClassLoader classLoader) {
         this.classLoader = classLoader;
     }
 
     protected Class<?> predictBeanType(String beanName, RootBeanDefinition mbd, Class<?>... typesToMatch) {
-        try {
-            return classLoader.loadClass(beanName);
-        } catch (ClassNotFoundException ignored) {}
+        Class<?> beanClass = beanNameClasses.computeIfAbsent(beanName, this::loadBeanNameClass).orElse(null);
+        if (beanClass != null) return beanClass;
         return super.predictBeanType(beanName, mbd, typesToMatch);
     }
+
+    @Override
+    protected void resetBeanDefinition(String beanName) {
+        beanNameClasses.remove(beanName);
+        super.resetBeanDefinition(beanName);
+    }
+
+    private Optional<Class<?>> loadBeanNameClass(String beanName) {
+        if (!isQualifiedClassName(beanName)) return Optional.empty();
+        try {
+            return Optional.of(classLoader.loadClass(beanName));
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Cheap check to skip bean names which couldn't be fully qualified class names,
+     * e.g. "dataSource" or "org.example.Foo#0", without probing class loaders.
+     */
+    private static boolean isQualifiedClassName(String name) {
+        if (name.indexOf('.') < 0) return false;
+        boolean segmentStart = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.') {
+                if (segmentStart) return false;
+                segmentStart = true;
+            } else if (segmentStart) {
+                if (!Character.isJavaIdentifierStart(c)) return false;
+                segmentStart = false;
+            } else if (!Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        return !segmentStart;
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reentrant lock held while plugins are loading. Besides locking, it lets
+ * incoming requests wait for loading to be finished, either by parking the
+ * current thread or by subscribing a {@link CompletableFuture}, instead of
+ * polling {@link #isLocked()}.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginLoadingGate {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private CompletableFuture<Void> released = CompletableFuture.completedFuture(null);
+
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    public boolean isLocked() {
+        return lock.isLocked();
+    }
+
+    public void lock() {
+        lock.lock();
+        synchronized (this) {
+            if (lock.getHoldCount() == 1 && released.isDone()) {
+                released = new CompletableFuture<>();
+            }
+        }
+    }
+
+    /**
+     * Waiters are resumed on current thread once it's fully unlocked, so caller
+     * should not hold any other lock by then.
+     */
+    public void unlock() {
+        CompletableFuture<Void> waiters = null;
+        synchronized (this) {
+            boolean outermost = lock.getHoldCount() == 1;
+            lock.unlock();
+            // another thread might acquire the lock right after, keep waiters parked then.
+            if (outermost && !lock.isLocked()) {
+                waiters = released;
+                released = CompletableFuture.completedFuture(null);
+            }
+        }
+        // outside of the monitor, waiters might continue on current thread
+        if (waiters != null) waiters.complete(null);
+    }
+
+    /**
+     * @return a future completed once loading is finished. Cancelling it doesn't
+     * affect other waiters.
+     */
+    public synchronized CompletableFuture<Void> whenReleased() {
+        return released.isDone() ? released : released.copy();
+    }
+
+    /**
+     * Park current thread until loading is finished.
+     *
+     * @return false if loading is not finished in given time.
+     */
+    public boolean await(long timeout, TimeUnit unit) {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            future = released;
+        }
+        if (future.isDone()) return true;
+        try {
+            future.get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+}
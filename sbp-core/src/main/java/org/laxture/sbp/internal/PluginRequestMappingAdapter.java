@@ -17,16 +17,11 @@ package org.laxture.sbp.internal;
 
 import org.laxture.sbp.SpringBootPlugin;
 import org.laxture.sbp.spring.boot.SpringBootstrap;
-import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -38,18 +33,134 @@ public interface PluginRequestMappingAdapter {
     // RequestMapping
     //*************************************************************************
 
+    /**
+     * Register all controllers and router functions of plugin as one batch. Beans
+     * are registered to main {@link ApplicationContext} ahead, then request mappings
+     * are swapped in under one write lock, so requests never see a half-registered plugin.
+     */
+    default void registerPlugin(SpringBootPlugin springBootPlugin) {
+        Map<String, Object> controllers = getControllerBeans(springBootPlugin);
+        Map<String, Object> routerFunctions = getRouterFunctionBeans(springBootPlugin);
+        registerControllerBeans(springBootPlugin, controllers);
+        routerFunctions.forEach((beanName, bean) -> {
+            springBootPlugin.unregisterBeanFromMainContext(beanName);
+            springBootPlugin.registerBeanToMainContext(beanName, bean);
+        });
+        runWithMappingsLocked(() -> {
+            swapControllerMappings(controllers);
+            updatePluginRoute(springBootPlugin, controllers.values());
+            if (!routerFunctions.isEmpty()) updateRouterFunctions(springBootPlugin, routerFunctions.values());
+        });
+        registerRoutes(springBootPlugin, controllers, routerFunctions);
+    }
+
+    /**
+     * Unregister all controllers and router functions of plugin as one batch,
+     * reverse of {@link #registerPlugin(SpringBootPlugin)}.
+     */
+    default void unregisterPlugin(SpringBootPlugin springBootPlugin) {
+        Map<String, Object> controllers = getControllerBeans(springBootPlugin);
+        Map<String, Object> routerFunctions = getRouterFunctionBeans(springBootPlugin);
+        runWithMappingsLocked(() -> {
+            updatePluginRoute(springBootPlugin, Collections.emptyList());
+            controllers.values().forEach(this::unregisterControllerMappings);
+            if (!routerFunctions.isEmpty()) {
+                routerFunctions.keySet().forEach(springBootPlugin::unregisterBeanFromMainContext);
+                updateRouterFunctions(springBootPlugin, Collections.emptyList());
+            }
+        });
+        controllers.values().forEach(springBootPlugin::unregisterBeanFromMainContext);
+    }
+
     void registerController(SpringBootPlugin springBootPlugin, String beanName, Object controller);
 
     void unregisterController(SpringBootPlugin springBootPlugin, Object controller);
 
+    /**
+     * @return whether request mappings of the controller are registered.
+     */
+    boolean isControllerRegistered(Object controller);
+
+    /**
+     * Register request mappings of the controller. The controller bean should be
+     * registered to main {@link ApplicationContext} already.
+     */
+    void registerControllerMappings(Object controller);
+
+    /**
+     * Unregister request mappings of the controller, leave the controller bean alone.
+     */
+    void unregisterControllerMappings(Object controller);
+
+    /**
+     * Apply mapping changes while request mapping lookups are held off, so requests
+     * never see a half-registered plugin.
+     */
+    void runWithMappingsLocked(Runnable changes);
+
+    /**
+     * Route requests under base path of plugin to request mappings of given controllers.
+     * No base path or empty controllers withdraw the route.
+     *
+     * @see SpringBootPlugin#getBasePath()
+     */
+    void updatePluginRoute(SpringBootPlugin springBootPlugin, Collection<Object> controllers);
+
+    /**
+     * @return URL patterns of request mappings registered for the controller.
+     */
+    Set<String> getMappingPatterns(Object controller);
+
+    /**
+     * Register all controllers of plugin as one batch. Controller beans are registered
+     * to main {@link ApplicationContext} first, then their request mappings are swapped
+     * in within one lock acquisition.
+     */
     default void registerControllers(SpringBootPlugin springBootPlugin) {
-        getControllerBeans(springBootPlugin).forEach((beanName, bean) ->
-            registerController(springBootPlugin, beanName, bean));
+        Map<String, Object> controllers = getControllerBeans(springBootPlugin);
+        registerControllerBeans(springBootPlugin, controllers);
+        runWithMappingsLocked(() -> {
+            swapControllerMappings(controllers);
+            updatePluginRoute(springBootPlugin, controllers.values());
+        });
+        registerRoutes(springBootPlugin, controllers, getRouterFunctionBeans(springBootPlugin));
+    }
+
+    private void registerControllerBeans(SpringBootPlugin springBootPlugin, Map<String, Object> controllers) {
+        controllers.forEach((beanName, bean) -> {
+            // unregister controller bean if already registered
+            if (isControllerRegistered(bean)) springBootPlugin.unregisterBeanFromMainContext(bean);
+            springBootPlugin.registerBeanToMainContext(beanName, bean);
+        });
+    }
+
+    private void swapControllerMappings(Map<String, Object> controllers) {
+        controllers.values().forEach(bean -> {
+            if (isControllerRegistered(bean)) unregisterControllerMappings(bean);
+            registerControllerMappings(bean);
+        });
     }
 
+    private void registerRoutes(SpringBootPlugin springBootPlugin,
+                                Map<String, Object> controllers, Map<String, Object> routerFunctions) {
+        Set<String> patterns = new LinkedHashSet<>();
+        controllers.values().forEach(bean -> patterns.addAll(getMappingPatterns(bean)));
+        routerFunctions.values().forEach(bean -> patterns.addAll(getRouterFunctionPatterns(bean)));
+        // remember plugin routes, so requests bound for plugin could be held while it's reloading
+        springBootPlugin.getPluginManager().getRouteRegistry().register(
+            springBootPlugin.getWrapper().getPluginId(), patterns);
+    }
+
+    /**
+     * Unregister all controllers of plugin as one batch, reverse of {@link #registerControllers(SpringBootPlugin)}.
+     */
     default void unregisterControllers(SpringBootPlugin springBootPlugin) {
-        getControllerBeans(springBootPlugin).forEach((beanName, bean) ->
-            unregisterController(springBootPlugin, bean));
+        Map<String, Object> controllers = getControllerBeans(springBootPlugin);
+        runWithMappingsLocked(() -> {
+            updatePluginRoute(springBootPlugin, Collections.emptyList());
+            controllers.values().forEach(this::unregisterControllerMappings);
+        });
+        controllers.values().forEach(springBootPlugin::unregisterBeanFromMainContext);
     }
 
     default Map<String, Object> getControllerBeans(SpringBootPlugin springBootPlugin) {
@@ -74,20 +185,33 @@ public interface PluginRequestMappingAdapter {
     Class<?> getRouterFunctionClass();
 
     default void registerRouterFunction(SpringBootPlugin springBootPlugin) {
-        getRouterFunctionBeans(springBootPlugin).forEach((beanName, bean) -> {
-            // unregister RequestMapping if already registered
+        Map<String, Object> routerFunctions = getRouterFunctionBeans(springBootPlugin);
+        routerFunctions.forEach((beanName, bean) -> {
+            // unregister RouterFunction if already registered
             springBootPlugin.unregisterBeanFromMainContext(beanName);
             springBootPlugin.registerBeanToMainContext(beanName, bean);
         });
-        this.initRouterFunctions(springBootPlugin);
+        updateRouterFunctions(springBootPlugin, routerFunctions.values());
+        registerRoutes(springBootPlugin, getControllerBeans(springBootPlugin), routerFunctions);
     }
 
     default void unregisterRouterFunction(SpringBootPlugin springBootPlugin) {
         getRouterFunctionBeans(springBootPlugin).forEach(
             (beanName, bean) -> springBootPlugin.unregisterBeanFromMainContext(beanName));
-        this.initRouterFunctions(springBootPlugin);
+        updateRouterFunctions(springBootPlugin, Collections.emptyList());
     }
 
+    /**
+     * Replace router functions contributed by plugin in main application.
+     * Empty router functions withdraw them.
+     */
+    void updateRouterFunctions(SpringBootPlugin springBootPlugin, Collection<Object> routerFunctions);
+
+    /**
+     * @return URL patterns served by the router function.
+     */
+    Set<String> getRouterFunctionPatterns(Object routerFunction);
+
     default Map<String, Object> getRouterFunctionBeans(SpringBootPlugin springBootPlugin) {
         ApplicationContext applicationContext = springBootPlugin.getApplicationContext();
         //noinspection unchecked
@@ -97,16 +221,4 @@ public interface PluginRequestMappingAdapter {
             .entrySet().stream().filter(beanEntry -> !sharedBeanNames.contains(beanEntry.getKey()))
             .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
-
-    default void initRouterFunctions(SpringBootPlugin springBootPlugin) {
-        try {
-            Object mapping = springBootPlugin.getMainApplicationContext().getBean("routerFunctionMapping");
-            Method initMethod;
-            try {
-                initMethod = mapping.getClass().getDeclaredMethod("initRouterFunctions");
-            } catch (NoSuchMethodException e) { return; }
-            initMethod.setAccessible(true);
-            initMethod.invoke(mapping);
-        } catch (BeansException | IllegalAccessException | InvocationTargetException ignored) {}
-    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.pf4j.PluginWrapper;
+import org.springframework.core.io.Resource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Static resources resolved from plugins, partitioned by plugin id so they could be
+ * evicted once the plugin is changed, leaving resources of other plugins alone.
+ *
+ * Resources not packaged in plugin are told by {@link PluginClassIndex} of plugin
+ * class loader, without probing plugin jar.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginResourceCache {
+
+    // plugin id -> resource path -> resolved resource
+    private final Map<String, Map<String, Resource>> resources = new ConcurrentHashMap<>();
+
+    public Resource get(String pluginId, String path) {
+        Map<String, Resource> pluginResources = resources.get(pluginId);
+        return pluginResources != null ? pluginResources.get(path) : null;
+    }
+
+    public void put(String pluginId, String path, Resource resource) {
+        resources.computeIfAbsent(pluginId, key -> new ConcurrentHashMap<>()).put(path, resource);
+    }
+
+    /**
+     * Evict resources resolved from plugin, or from all plugins if plugin id is null.
+     */
+    public void evict(String pluginId) {
+        if (pluginId == null) {
+            resources.clear();
+        } else {
+            resources.remove(pluginId);
+        }
+    }
+
+    /**
+     * @return false if the resource is surely not packaged in plugin.
+     */
+    public static boolean mayContain(PluginWrapper plugin, String path) {
+        ClassLoader classLoader = plugin.getPluginClassLoader();
+        if (!(classLoader instanceof SpringBootPluginClassLoader)) return true;
+        return ((SpringBootPluginClassLoader) classLoader).getClassIndex().containsResource(path);
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.laxture.spring.util.ApplicationContextProvider;
+import org.pf4j.PluginManager;
+import org.pf4j.PluginWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ResourceUtils;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of static resource chain, bounded by size and TTL in LRU order. Entries are
+ * partitioned by the plugin packaging the resource, so only entries of changed plugin
+ * are evicted. Resources wrapped by encoded or versioned resolvers are told by their
+ * location. Entries not resolved from a plugin, e.g. resolved url paths, are kept in
+ * a shared partition, which is evicted along with any plugin.
+ *
+ * Entries are spread over segments locked separately, so concurrent lookups don't
+ * contend on one lock. Size bound and LRU order are kept per segment.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginResourceChainCache extends AbstractValueAdaptingCache {
+
+    public static final String DEFAULT_CACHE_NAME = "sbp-resource-chain-cache";
+
+    private static final String SHARED_PARTITION = "";
+
+    private static final int SEGMENT_COUNT = 16;
+
+    @Autowired @Lazy
+    private PluginManager pluginManager;
+
+    private PluginStaticResourceStore staticResourceStore;
+
+    private final String name;
+    private final long ttlMillis;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    // partition -> keys of entries in it
+    private final Map<String, Set<Object>> partitions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxSize entries more than it are evicted in LRU order, non-positive means unbounded
+     * @param ttl entries are expired after it since put, null means never expire
+     */
+    public PluginResourceChainCache(String name, int maxSize, Duration ttl) {
+        super(false);
+        this.name = name;
+        this.ttlMillis = ttl != null && !ttl.isZero() && !ttl.isNegative() ? ttl.toMillis() : 0;
+        int segmentMaxSize = maxSize > 0 ? Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT) : 0;
+        for (int i = 0; i < SEGMENT_COUNT; i++) segments[i] = new Segment(segmentMaxSize);
+    }
+
+    /**
+     * Tell plugin of resources extracted by the store.
+     */
+    public void setStaticResourceStore(PluginStaticResourceStore staticResourceStore) {
+        this.staticResourceStore = staticResourceStore;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return segments;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.isExpired()) {
+                remove(segment, key);
+                entry = null;
+            }
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            hitCount.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) return (T) cached.get();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        String partition = getPartition(value);
+        long expiredAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            doPut(segment, key, new Entry(toStoreValue(value), partition, expiredAt));
+        }
+    }
+
+    private void doPut(Segment segment, Object key, Entry entry) {
+        remove(segment, key);
+        segment.put(key, entry);
+        partitions.computeIfAbsent(entry.partition, k -> ConcurrentHashMap.newKeySet()).add(key);
+        if (segment.maxSize > 0 && segment.size() > segment.maxSize) {
+            // eldest entry is the least recently used one
+            remove(segment, segment.keySet().iterator().next());
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Object existing = lookup(key);
+            if (existing != null) return new SimpleValueWrapper(fromStoreValue(existing));
+            put(key, value);
+            return null;
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            remove(segment, key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        partitions.clear();
+    }
+
+    /**
+     * Evict entries resolved from plugin together with shared entries, or all entries
+     * if plugin id is null.
+     */
+    public void evictPlugin(String pluginId) {
+        if (pluginId == null) {
+            clear();
+            return;
+        }
+        removePartition(pluginId);
+        removePartition(SHARED_PARTITION);
+    }
+
+    private void removePartition(String partition) {
+        Set<Object> keys = partitions.remove(partition);
+        if (keys == null) return;
+        for (Object key : keys) {
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                Entry entry = segment.get(key);
+                // might be put to other partition again
+                if (entry != null && entry.partition.equals(partition)) segment.remove(key);
+            }
+        }
+    }
+
+    private void remove(Segment segment, Object key) {
+        Entry entry = segment.remove(key);
+        if (entry == null) return;
+        Set<Object> keys = partitions.get(entry.partition);
+        if (keys != null) keys.remove(key);
+    }
+
+    private String getPartition(Object value) {
+        if (!(value instanceof Resource)) return SHARED_PARTITION;
+        if (value instanceof PluginStaticResourceStore.ExtractedResource
+                && ((PluginStaticResourceStore.ExtractedResource) value).getPluginId() != null) {
+            return ((PluginStaticResourceStore.ExtractedResource) value).getPluginId();
+        }
+        if (value instanceof ClassPathResource
+                && ((ClassPathResource) value).getClassLoader() instanceof SpringBootPluginClassLoader) {
+            return ((SpringBootPluginClassLoader) ((ClassPathResource) value).getClassLoader()).getPluginId();
+        }
+        // wrapped by encoded or versioned resolvers, which expose location of original or encoded resource
+        try {
+            String pluginId = whichPlugin(((Resource) value).getURL());
+            return pluginId != null ? pluginId : SHARED_PARTITION;
+        } catch (IOException | RuntimeException e) {
+            return SHARED_PARTITION;
+        }
+    }
+
+    private String whichPlugin(URL url) throws IOException {
+        if (staticResourceStore != null && ResourceUtils.isFileURL(url)) {
+            String pluginId = staticResourceStore.whichPlugin(ResourceUtils.getFile(url).toPath());
+            if (pluginId != null) return pluginId;
+        }
+        String location = (ResourceUtils.isJarURL(url) ? ResourceUtils.extractJarFileURL(url) : url).toString();
+        // pluginManager might not be autowired since cache could be instantiated by customizer
+        if (pluginManager == null) {
+            pluginManager = ApplicationContextProvider.getBean(PluginManager.class);
+        }
+        for (PluginWrapper plugin : pluginManager.getPlugins()) {
+            if (!(plugin.getPluginClassLoader() instanceof URLClassLoader)) continue;
+            for (URL classpathUrl : ((URLClassLoader) plugin.getPluginClassLoader()).getURLs()) {
+                if (location.startsWith(classpathUrl.toString())) return plugin.getPluginId();
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        stats.put("size", size);
+        stats.put("hitCount", hitCount.get());
+        stats.put("missCount", missCount.get());
+        stats.put("evictionCount", evictionCount.get());
+        return stats;
+    }
+
+    private static class Segment extends LinkedHashMap<Object, Entry> {
+
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+    }
+
+    private static class Entry {
+
+        private final Object value;
+        private final String partition;
+        private final long expiredAt;
+
+        Entry(Object value, String partition, long expiredAt) {
+            this.value = value;
+            this.partition = partition;
+            this.expiredAt = expiredAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiredAt;
+        }
+    }
+}
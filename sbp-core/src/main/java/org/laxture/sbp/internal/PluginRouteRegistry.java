@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+import java.util.*;
+
+/**
+ * Remember request mapping patterns registered by each plugin, so incoming request
+ * could be resolved to the plugin owning it, even while the plugin is stopped
+ * for reloading and its mappings are not registered.
+ *
+ * Patterns are indexed by their first path segment, so a request is only tested
+ * against patterns sharing its first segment, plus those starting with wildcards.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginRouteRegistry {
+
+    private static final AntPathMatcher ANT_PATH_MATCHER = new AntPathMatcher();
+
+    // key of patterns starting with wildcards or variables, e.g. "/**" or "/{tenant}/foo"
+    private static final String WILDCARD_SEGMENT = "*";
+
+    private final Map<String, List<Route>> pluginRoutes = new LinkedHashMap<>();
+    // first path segment -> routes, rebuilt on change and read without lock
+    private volatile Map<String, List<Route>> index = Collections.emptyMap();
+
+    /**
+     * Replace request mapping patterns owned by plugin.
+     */
+    public synchronized void register(String pluginId, Collection<String> patterns) {
+        List<Route> routes = new ArrayList<>();
+        for (String pattern : patterns) {
+            routes.add(new Route(pluginId, pattern));
+        }
+        pluginRoutes.put(pluginId, routes);
+        rebuild();
+    }
+
+    public synchronized void unregister(String pluginId) {
+        if (pluginRoutes.remove(pluginId) != null) rebuild();
+    }
+
+    /**
+     * Drop routes of plugins other than given ones.
+     */
+    public synchronized void retain(Collection<String> pluginIds) {
+        if (pluginRoutes.keySet().retainAll(pluginIds)) rebuild();
+    }
+
+    public synchronized void clear() {
+        pluginRoutes.clear();
+        rebuild();
+    }
+
+    public boolean contains(String pluginId) {
+        synchronized (this) {
+            return pluginRoutes.containsKey(pluginId);
+        }
+    }
+
+    private void rebuild() {
+        Map<String, List<Route>> newIndex = new HashMap<>();
+        for (List<Route> routes : pluginRoutes.values()) {
+            for (Route route : routes) {
+                newIndex.computeIfAbsent(route.segment, key -> new ArrayList<>()).add(route);
+            }
+        }
+        index = newIndex;
+    }
+
+    /**
+     * @return the first plugin within candidates owning the lookup path, or null if
+     * it is not bound for any of them.
+     */
+    public String resolve(String lookupPath, Collection<String> candidatePluginIds) {
+        Map<String, List<Route>> currentIndex = index;
+        if (currentIndex.isEmpty() || candidatePluginIds.isEmpty()) return null;
+        List<Route> routes = currentIndex.get(firstSegment(lookupPath));
+        List<Route> wildcardRoutes = currentIndex.get(WILDCARD_SEGMENT);
+        if (routes == null && wildcardRoutes == null) return null;
+
+        // parse once for all patterns
+        PathContainer path = PathContainer.parsePath(lookupPath);
+        String pluginId = resolve(routes, path, lookupPath, candidatePluginIds);
+        return pluginId != null ? pluginId : resolve(wildcardRoutes, path, lookupPath, candidatePluginIds);
+    }
+
+    private static String resolve(List<Route> routes, PathContainer path, String lookupPath,
+                                  Collection<String> candidatePluginIds) {
+        if (routes == null) return null;
+        for (Route route : routes) {
+            if (candidatePluginIds.contains(route.pluginId) && route.matches(path, lookupPath)) {
+                return route.pluginId;
+            }
+        }
+        return null;
+    }
+
+    private static String firstSegment(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static class Route {
+
+        private final String pluginId;
+        private final String segment;
+        private final PathPattern pathPattern;
+        private final String antPattern;
+
+        Route(String pluginId, String pattern) {
+            this.pluginId = pluginId;
+            String segment = firstSegment(pattern);
+            this.segment = segment.indexOf('*') >= 0 || segment.indexOf('{') >= 0 || segment.indexOf('?') >= 0
+                ? WILDCARD_SEGMENT : segment;
+            PathPattern pathPattern;
+            try {
+                pathPattern = PathPatternParser.defaultInstance.parse(pattern);
+            } catch (PatternParseException ex) {
+                // patterns for AntPathMatcher, e.g. "/**/foo", are not supported by PathPatternParser
+                pathPattern = null;
+            }
+            this.pathPattern = pathPattern;
+            this.antPattern = pattern;
+        }
+
+        boolean matches(PathContainer path, String lookupPath) {
+            return pathPattern != null ? pathPattern.matches(path) : ANT_PATH_MATCHER.match(antPattern, lookupPath);
+        }
+    }
+}
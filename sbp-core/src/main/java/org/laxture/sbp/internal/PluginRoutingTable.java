@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Routing table keyed by base path declared by plugins, e.g. `sbp-plugin.base-path`.
+ * Requests under a base path are matched against request mappings of the owning plugin
+ * only, instead of all mappings registered in main application.
+ *
+ * A base path claimed by more than one plugin is not routed, requests under it
+ * go through Spring's matching as usual. So is a base path contended by mappings
+ * outside the plugin, e.g. main application mapping `/{base-path}/**`, since those
+ * might be a better match than mappings of the plugin.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@Slf4j
+public class PluginRoutingTable<T> {
+
+    // plugin id -> base path and request mappings declared by plugin
+    private final Map<String, Declaration<T>> declarations = new LinkedHashMap<>();
+    // base path -> route, rebuilt on change and read without lock
+    private volatile Map<String, Route<T>> routes = Collections.emptyMap();
+    private volatile int maxDepth;
+    private final Function<T, Collection<String>> patternsOf;
+
+    /**
+     * @param patternsOf URL patterns of request mapping
+     */
+    public PluginRoutingTable(Function<T, Collection<String>> patternsOf) {
+        this.patternsOf = patternsOf;
+    }
+
+    /**
+     * Declare request mappings routed under base path of plugin, replacing previous ones.
+     * Takes effect on next {@link #rebuild(Map)}.
+     */
+    public synchronized void register(String pluginId, String basePath, Collection<T> mappings) {
+        String path = normalize(basePath);
+        if (path == null || mappings.isEmpty()) {
+            declarations.remove(pluginId);
+            return;
+        }
+        declarations.put(pluginId, new Declaration<>(path, new LinkedHashSet<>(mappings)));
+    }
+
+    /**
+     * Add request mappings to route of plugin, e.g. a single controller is registered.
+     */
+    public synchronized void addMappings(String pluginId, String basePath, Collection<T> mappings) {
+        Declaration<T> declaration = declarations.get(pluginId);
+        if (declaration == null) {
+            register(pluginId, basePath, mappings);
+        } else {
+            declaration.mappings.addAll(mappings);
+        }
+    }
+
+    /**
+     * Remove request mappings from route of plugin, e.g. a single controller is unregistered.
+     */
+    public synchronized void removeMappings(String pluginId, Collection<T> mappings) {
+        Declaration<T> declaration = declarations.get(pluginId);
+        if (declaration == null) return;
+        declaration.mappings.removeAll(mappings);
+        if (declaration.mappings.isEmpty()) declarations.remove(pluginId);
+    }
+
+    public synchronized void unregister(String pluginId) {
+        declarations.remove(pluginId);
+    }
+
+    /**
+     * Rebuild routes against a snapshot of request mappings registry. Handler methods are
+     * taken from the registry as is, and mappings no longer registered are dropped.
+     * Snapshot must be taken before calling, so this table never waits for the registry.
+     */
+    public synchronized void rebuild(Map<T, HandlerMethod> registrations) {
+        Map<String, Route<T>> newRoutes = new HashMap<>();
+        Set<String> conflicts = new HashSet<>();
+        declarations.forEach((pluginId, declaration) -> {
+            Map<T, HandlerMethod> mappings = new LinkedHashMap<>();
+            for (T mapping : declaration.mappings) {
+                HandlerMethod handlerMethod = registrations.get(mapping);
+                if (handlerMethod != null) mappings.put(mapping, handlerMethod);
+            }
+            if (mappings.isEmpty()) return;
+            Route<T> route = new Route<>(pluginId, declaration.basePath, Collections.unmodifiableMap(mappings));
+            Route<T> existing = newRoutes.putIfAbsent(route.basePath, route);
+            if (existing != null) {
+                log.warn("Base path {} is claimed by plugin {} and {}, it won't be routed to either of them",
+                    route.basePath, existing.pluginId, route.pluginId);
+                conflicts.add(route.basePath);
+            }
+        });
+        newRoutes.keySet().removeAll(conflicts);
+        removeContendedRoutes(newRoutes, registrations.keySet());
+
+        int depth = 0;
+        for (String basePath : newRoutes.keySet()) depth = Math.max(depth, depthOf(basePath));
+        routes = newRoutes;
+        maxDepth = depth;
+    }
+
+    /**
+     * Mappings not belonging to the plugin, e.g. `/{base-path}/**` of main application,
+     * might be a better match under its base path, so such base path is not routed.
+     */
+    private void removeContendedRoutes(Map<String, Route<T>> newRoutes, Collection<T> registeredMappings) {
+        if (newRoutes.isEmpty()) return;
+        for (T mapping : registeredMappings) {
+            Collection<String> patterns = null;
+            Iterator<Route<T>> iterator = newRoutes.values().iterator();
+            while (iterator.hasNext()) {
+                Route<T> route = iterator.next();
+                if (route.mappings.containsKey(mapping)) continue;
+                if (patterns == null) patterns = patternsOf.apply(mapping);
+                if (patterns.isEmpty() || patterns.stream().anyMatch(pattern -> overlaps(pattern, route.basePath))) {
+                    log.debug("Base path {} of plugin {} is contended by other mappings, it won't be routed",
+                        route.basePath, route.pluginId);
+                    iterator.remove();
+                }
+            }
+            if (newRoutes.isEmpty()) return;
+        }
+    }
+
+    /**
+     * @return route of the plugin owning the lookup path, or null if no plugin owns it.
+     */
+    public Route<T> lookup(String lookupPath) {
+        Map<String, Route<T>> currentRoutes = routes;
+        if (currentRoutes.isEmpty() || lookupPath == null) return null;
+        // probe prefixes of lookup path at segment boundaries, up to the deepest base path
+        int depth = 0;
+        int index = lookupPath.indexOf('/', 1);
+        while (index > 0 && depth < maxDepth) {
+            Route<T> route = currentRoutes.get(lookupPath.substring(0, index));
+            if (route != null) return route;
+            depth++;
+            index = lookupPath.indexOf('/', index + 1);
+        }
+        return depth < maxDepth ? currentRoutes.get(lookupPath) : null;
+    }
+
+    private static String normalize(String basePath) {
+        if (basePath == null) return null;
+        String path = basePath.trim();
+        while (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        if (path.isEmpty()) return null;
+        return path.startsWith("/") ? path : "/" + path;
+    }
+
+    /**
+     * Conservatively tell whether a mapping pattern could match any path under base path.
+     */
+    public static boolean overlaps(String pattern, String basePath) {
+        String path = pattern.startsWith("/") ? pattern : "/" + pattern;
+        int wildcard = -1;
+        for (int i = 0; i < path.length() && wildcard < 0; i++) {
+            char c = path.charAt(i);
+            if (c == '*' || c == '?' || c == '{') wildcard = i;
+        }
+        String prefix = basePath + "/";
+        if (wildcard < 0) return path.equals(basePath) || path.startsWith(prefix);
+        String literal = path.substring(0, wildcard);
+        return prefix.startsWith(literal) || literal.startsWith(prefix);
+    }
+
+    private static int depthOf(String path) {
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') depth++;
+        }
+        return depth;
+    }
+
+    private static class Declaration<T> {
+
+        private final String basePath;
+        private final Set<T> mappings;
+
+        Declaration(String basePath, Set<T> mappings) {
+            this.basePath = basePath;
+            this.mappings = mappings;
+        }
+    }
+
+    public static class Route<T> {
+
+        private final String pluginId;
+        private final String basePath;
+        private final Map<T, HandlerMethod> mappings;
+
+        Route(String pluginId, String basePath, Map<T, HandlerMethod> mappings) {
+            this.pluginId = pluginId;
+            this.basePath = basePath;
+            this.mappings = mappings;
+        }
+
+        public String getPluginId() {
+            return pluginId;
+        }
+
+        public String getBasePath() {
+            return basePath;
+        }
+
+        public Map<T, HandlerMethod> getMappings() {
+            return mappings;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pf4j.PluginDependency;
+import org.pf4j.PluginWrapper;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Start a batch of plugins following their dependency graph. Plugins without
+ * unfinished dependencies are started concurrently on a bounded executor, a plugin
+ * is only started after all of its dependencies in the same batch are done.
+ *
+ * Plugins must be passed in dependency order, e.g. `resolvedPlugins` of PluginManager.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@Slf4j
+public class PluginStartScheduler {
+
+    // marks threads starting plugins on behalf of the thread holding plugin operation lock
+    private static final ThreadLocal<Boolean> STARTER_THREAD = new ThreadLocal<>();
+
+    private final Map<String, PluginWrapper> plugins = new LinkedHashMap<>();
+    private final Map<String, List<String>> dependencies = new HashMap<>();
+    private final Map<String, List<String>> dependents = new HashMap<>();
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final int parallelism;
+
+    public PluginStartScheduler(List<PluginWrapper> plugins, int parallelism) {
+        this.parallelism = parallelism;
+        for (PluginWrapper plugin : plugins) {
+            this.plugins.put(plugin.getPluginId(), plugin);
+        }
+        // only dependencies started in the same batch need to be waited for
+        for (PluginWrapper plugin : plugins) {
+            List<String> pluginDependencies = new ArrayList<>();
+            for (PluginDependency dependency : plugin.getDescriptor().getDependencies()) {
+                if (!this.plugins.containsKey(dependency.getPluginId())) continue;
+                pluginDependencies.add(dependency.getPluginId());
+                dependents.computeIfAbsent(dependency.getPluginId(), k -> new ArrayList<>())
+                    .add(plugin.getPluginId());
+            }
+            dependencies.put(plugin.getPluginId(), pluginDependencies);
+        }
+    }
+
+    /**
+     * Start all plugins with given starter. Starter is expected to handle
+     * its own errors, a failed plugin doesn't prevent its dependents from starting.
+     *
+     * @return critical path time of the dependency graph in milliseconds.
+     */
+    public long run(Consumer<PluginWrapper> starter) {
+        if (parallelism <= 1 || plugins.size() <= 1) {
+            plugins.values().forEach(plugin -> start(plugin, starter));
+        } else {
+            runConcurrently(starter);
+        }
+        return getCriticalPathTime();
+    }
+
+    private void runConcurrently(Consumer<PluginWrapper> starter) {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.min(parallelism, plugins.size()), runnable -> {
+                Thread thread = new Thread(() -> {
+                    STARTER_THREAD.set(Boolean.TRUE);
+                    runnable.run();
+                }, "sbp-plugin-starter-" + threadIndex.incrementAndGet());
+                thread.setContextClassLoader(contextClassLoader);
+                return thread;
+            });
+
+        Map<String, AtomicInteger> pendingDependencies = new HashMap<>();
+        dependencies.forEach((pluginId, pluginDependencies) ->
+            pendingDependencies.put(pluginId, new AtomicInteger(pluginDependencies.size())));
+        CountDownLatch latch = new CountDownLatch(plugins.size());
+
+        Consumer<PluginWrapper> submitter = new Consumer<PluginWrapper>() {
+            @Override
+            public void accept(PluginWrapper plugin) {
+                executor.execute(() -> {
+                    try {
+                        start(plugin, starter);
+                    } finally {
+                        for (String dependent : dependents.getOrDefault(plugin.getPluginId(), Collections.emptyList())) {
+                            if (pendingDependencies.get(dependent).decrementAndGet() == 0) {
+                                accept(plugins.get(dependent));
+                            }
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+        };
+
+        try {
+            pendingDependencies.forEach((pluginId, pending) -> {
+                if (pending.get() == 0) submitter.accept(plugins.get(pluginId));
+            });
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while starting plugins", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if current thread is a worker starting plugins concurrently. Such
+     * thread must not wait for plugin operation lock, which is held by the thread
+     * waiting for the batch to be done.
+     */
+    public static boolean isStarterThread() {
+        return STARTER_THREAD.get() != null;
+    }
+
+    private void start(PluginWrapper plugin, Consumer<PluginWrapper> starter) {
+        long ts = System.currentTimeMillis();
+        try {
+            starter.accept(plugin);
+        } catch (Throwable e) {
+            log.error(e.getMessage(), e);
+        } finally {
+            durations.put(plugin.getPluginId(), System.currentTimeMillis() - ts);
+        }
+    }
+
+    private long getCriticalPathTime() {
+        // plugins are in dependency order, so dependencies are always calculated first
+        Map<String, Long> finishTimes = new HashMap<>();
+        long criticalPath = 0;
+        for (String pluginId : plugins.keySet()) {
+            long startTime = 0;
+            for (String dependency : dependencies.get(pluginId)) {
+                startTime = Math.max(startTime, finishTimes.getOrDefault(dependency, 0L));
+            }
+            long finishTime = startTime + durations.getOrDefault(pluginId, 0L);
+            finishTimes.put(pluginId, finishTime);
+            criticalPath = Math.max(criticalPath, finishTime);
+        }
+        return criticalPath;
+    }
+}
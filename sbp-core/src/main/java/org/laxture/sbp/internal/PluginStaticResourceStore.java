@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed on-disk store of static resources packaged in plugin jars.
+ * Resources are extracted into `{dir}/{sha-256}/{filename}` on first hit,
+ * and served as file afterward, so web server could transfer them by zero-copy
+ * (e.g. Tomcat sendfile, Netty FileRegion) instead of streaming jar entries
+ * through heap buffers. Content hash is taken as strong ETag.
+ *
+ * Extracted resources are indexed by jar entry and modified time of jar, so they
+ * are not copied and hashed again once evicted from resource cache. Files only
+ * referenced by unloaded plugin are pruned.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+@Slf4j
+public class PluginStaticResourceStore {
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    // already compressed formats are not worth gzip
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+        "html", "htm", "css", "js", "mjs", "json", "map", "svg", "txt", "xml", "csv", "wasm");
+
+    // tiny files could get larger after gzip
+    private static final long MIN_COMPRESS_SIZE = 1024;
+
+    private final Path dir;
+
+    // jar entry URL + modified time of jar -> extracted resource
+    private final Map<String, ExtractedResource> index = new ConcurrentHashMap<>();
+
+    private boolean precompressEnabled;
+
+    private boolean deleteOnClose;
+
+    public PluginStaticResourceStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Generate gzip variant along with extracted resource, so `EncodedResourceResolver`
+     * could serve compressed response without compressing it per request. Variant is
+     * written before extracted resource is returned, so its first encoded lookup finds it.
+     */
+    public void setPrecompressEnabled(boolean precompressEnabled) {
+        this.precompressEnabled = precompressEnabled;
+    }
+
+    /**
+     * Delete the whole directory on {@link #close()}, for directory owned by this store only.
+     */
+    public void setDeleteOnClose(boolean deleteOnClose) {
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    /**
+     * Look up resource extracted before, without touching its content.
+     *
+     * @return extracted resource, or null if it's not extracted yet or not packaged in jar.
+     */
+    public ExtractedResource getExtracted(Resource resource) {
+        String indexKey = getIndexKey(resource);
+        return indexKey != null ? getExtracted(indexKey) : null;
+    }
+
+    private ExtractedResource getExtracted(String indexKey) {
+        ExtractedResource extracted = index.get(indexKey);
+        // deleted from outside
+        if (extracted != null && !extracted.exists()) {
+            index.remove(indexKey, extracted);
+            return null;
+        }
+        return extracted;
+    }
+
+    private static String getIndexKey(Resource resource) {
+        if (!(resource instanceof ClassPathResource) || resource.getFilename() == null) return null;
+        try {
+            URL url = resource.getURL();
+            if (!ResourceUtils.isJarURL(url)) return null;
+            File jarFile = ResourceUtils.getFile(ResourceUtils.extractJarFileURL(url));
+            return url + "@" + jarFile.lastModified();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Extract resource packaged in plugin jar to the store. It copies and hashes
+     * resource content, so it's better not to be called on event loop thread.
+     *
+     * @return extracted resource, or the given one if it's not packaged in jar or extracting failed.
+     */
+    public Resource extract(Resource resource) {
+        String indexKey = getIndexKey(resource);
+        if (indexKey == null) return resource;
+        ExtractedResource extracted = getExtracted(indexKey);
+        if (extracted != null) return extracted;
+        try {
+            Files.createDirectories(dir);
+            Path tmpFile = Files.createTempFile(dir, "extracting", ".tmp");
+            String contentHash;
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                try (InputStream is = resource.getInputStream();
+                     OutputStream os = new DigestOutputStream(Files.newOutputStream(tmpFile), md)) {
+                    is.transferTo(os);
+                }
+                contentHash = HexFormat.of().formatHex(md.digest());
+
+                Path file = dir.resolve(contentHash).resolve(resource.getFilename());
+                if (!Files.isRegularFile(file)) {
+                    Files.createDirectories(file.getParent());
+                    try {
+                        Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException ignored) {} // extracted concurrently
+                }
+                if (precompressEnabled) compress(file);
+                ClassLoader classLoader = ((ClassPathResource) resource).getClassLoader();
+                extracted = new ExtractedResource(file, contentHash, classLoader instanceof SpringBootPluginClassLoader
+                    ? ((SpringBootPluginClassLoader) classLoader).getPluginId() : null);
+                index.put(indexKey, extracted);
+                return extracted;
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.debug("Couldn't extract static resource {}. {}", resource, e.getMessage());
+            return resource;
+        }
+    }
+
+    /**
+     * @return id of plugin the extracted file, or its encoded variant, belongs to.
+     */
+    public String whichPlugin(Path file) {
+        Path dir = this.dir.toAbsolutePath().normalize();
+        file = file.toAbsolutePath().normalize();
+        if (!file.startsWith(dir) || file.getNameCount() != dir.getNameCount() + 2) return null;
+        String contentHash = file.getName(dir.getNameCount()).toString();
+        for (ExtractedResource extracted : index.values()) {
+            if (extracted.getContentHash().equals(contentHash)) return extracted.getPluginId();
+        }
+        return null;
+    }
+
+    /**
+     * Forget resources extracted from the plugin, and delete files no other
+     * plugin refers to.
+     */
+    public void prune(String pluginId) {
+        Set<String> prunedHashes = new HashSet<>();
+        index.values().removeIf(extracted -> {
+            if (!pluginId.equals(extracted.getPluginId())) return false;
+            prunedHashes.add(extracted.getContentHash());
+            return true;
+        });
+        index.values().forEach(extracted -> prunedHashes.remove(extracted.getContentHash()));
+        for (String contentHash : prunedHashes) {
+            try {
+                FileSystemUtils.deleteRecursively(dir.resolve(contentHash));
+            } catch (IOException e) {
+                log.debug("Couldn't prune static resource {}. {}", contentHash, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delete the directory if it's owned by this store.
+     */
+    public void close() {
+        index.clear();
+        if (!deleteOnClose) return;
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            log.debug("Couldn't delete static resource directory {}. {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Write gzip variant next to the file once, if it's compressible.
+     */
+    private void compress(Path file) {
+        Path gzipFile = file.resolveSibling(file.getFileName() + GZIP_SUFFIX);
+        if (Files.exists(gzipFile)) return;
+        String extension = StringUtils.getFilenameExtension(file.getFileName().toString());
+        try {
+            if (extension == null || !COMPRESSIBLE_EXTENSIONS.contains(extension.toLowerCase())
+                    || Files.size(file) < MIN_COMPRESS_SIZE) return;
+
+            Path tmpFile = Files.createTempFile(file.getParent(), "compressing", ".tmp");
+            try {
+                try (InputStream is = Files.newInputStream(file);
+                     OutputStream os = new GZIPOutputStream(Files.newOutputStream(tmpFile))) {
+                    is.transferTo(os);
+                }
+                try {
+                    Files.move(tmpFile, gzipFile, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {} // compressed concurrently
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException e) {
+            log.debug("Couldn't compress static resource {}. {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Strong ETag of extracted resource, or its gzip variant, from content hash.
+     *
+     * @return null if resource is not extracted by the store.
+     */
+    public String getETag(Resource resource) {
+        if (resource instanceof ExtractedResource) {
+            return "\"" + ((ExtractedResource) resource).getContentHash() + "\"";
+        }
+        // encoded variant wrapped by EncodedResourceResolver
+        if (resource == null || !resource.isFile()) return null;
+        try {
+            Path file = resource.getFile().toPath();
+            if (!file.startsWith(dir) || file.getNameCount() != dir.getNameCount() + 2) return null;
+            String contentHash = file.getName(dir.getNameCount()).toString();
+            return file.getFileName().toString().endsWith(GZIP_SUFFIX)
+                ? "\"" + contentHash + "-gzip\"" : "\"" + contentHash + "\"";
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static class ExtractedResource extends FileSystemResource {
+
+        private final String contentHash;
+        private final String pluginId;
+
+        ExtractedResource(Path file, String contentHash, String pluginId) {
+            super(file);
+            this.contentHash = contentHash;
+            this.pluginId = pluginId;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * @return id of the plugin packaging the resource.
+         */
+        public String getPluginId() {
+            return pluginId;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal;
+
+import java.util.*;
+
+/**
+ * Collect URL patterns served by router functions, driven by visitors of
+ * webmvc or webflux {@code RouterFunctions}. Nested path predicates are prefixed
+ * to patterns of their routes. Routes not bound to a single known path,
+ * e.g. resources or unknown router functions, are collected as wildcard of
+ * their enclosing path, so requests bound for them are never missed.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class RoutePatternCollector {
+
+    private static final String ANY = "/**";
+
+    private final Set<String> patterns = new LinkedHashSet<>();
+    // Optional.empty() marks an unknown prefix
+    private final Deque<Optional<String>> prefixes = new ArrayDeque<>();
+
+    // paths of predicate being visited
+    private final List<String> predicatePaths = new ArrayList<>();
+    private int negateDepth;
+
+    public void startPredicate() {
+        predicatePaths.clear();
+        negateDepth = 0;
+    }
+
+    public void path(String path) {
+        // paths in negation don't tell where the route is bound
+        if (negateDepth == 0) predicatePaths.add(path);
+    }
+
+    public void startNegate() {
+        negateDepth++;
+    }
+
+    public void endNegate() {
+        negateDepth--;
+    }
+
+    public void startNested() {
+        Optional<String> prefix = currentPrefix();
+        if (prefix.isPresent() && predicatePaths.size() == 1) {
+            prefixes.push(Optional.of(concat(prefix.get(), predicatePaths.get(0))));
+        } else if (prefix.isPresent() && predicatePaths.isEmpty()) {
+            prefixes.push(prefix);
+        } else {
+            prefixes.push(Optional.empty());
+        }
+    }
+
+    public void endNested() {
+        prefixes.pop();
+    }
+
+    public void route() {
+        Optional<String> prefix = currentPrefix();
+        if (prefix.isEmpty()) {
+            patterns.add(ANY);
+        } else if (predicatePaths.isEmpty()) {
+            patterns.add(concat(prefix.get(), ANY));
+        } else {
+            predicatePaths.forEach(path -> patterns.add(concat(prefix.get(), path)));
+        }
+    }
+
+    /**
+     * Route bound to any path under current prefix.
+     */
+    public void any() {
+        Optional<String> prefix = currentPrefix();
+        patterns.add(prefix.map(path -> concat(path, ANY)).orElse(ANY));
+    }
+
+    public Set<String> getPatterns() {
+        return patterns;
+    }
+
+    private Optional<String> currentPrefix() {
+        return prefixes.isEmpty() ? Optional.of("") : prefixes.peek();
+    }
+
+    private static String concat(String prefix, String path) {
+        if (prefix.endsWith(ANY)) return prefix;
+        String head = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        String tail = path.startsWith("/") ? path : "/" + path;
+        return head + tail;
+    }
+}
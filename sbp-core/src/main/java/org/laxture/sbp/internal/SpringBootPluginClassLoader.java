@@ -22,10 +22,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Enumeration;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -35,10 +34,23 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
 
     private static final Logger log = LoggerFactory.getLogger(SpringBootPluginClassLoader.class);
 
-    private List<String> pluginFirstClasses;
-    private List<String> pluginOnlyResources;
+    private static final String JAVA_PACKAGE_PREFIX = "java.";
+    private static final String PF4J_PACKAGE_PREFIX = "org.pf4j.";
+    // component index generated by spring-context-indexer, never mix up with main app's index
+    private static final String COMPONENTS_INDEX_RESOURCE = "META-INF/spring.components";
+    private static final int MAX_MISSING_DEPENDENCY_CLASSES = 10000;
+
+    private Pattern pluginFirstClasses;
+    private Pattern pluginOnlyResources;
+    private final Map<String, Boolean> pluginFirstClassesCache = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> pluginOnlyResourcesCache = new ConcurrentHashMap<>();
     private PluginManager pluginManager;
     private PluginDescriptor pluginDescriptor;
+    private volatile PluginClassIndex classIndex;
+    // class name -> dependency class loader owning it
+    private final Map<String, ClassLoader> dependencyClassOwners = new ConcurrentHashMap<>();
+    // classes no dependency owns, only for dependencies couldn't be told by class index
+    private final Set<String> missingDependencyClasses = ConcurrentHashMap.newKeySet();
 
     public SpringBootPluginClassLoader(PluginManager pluginManager, PluginDescriptor pluginDescriptor, ClassLoader parent) {
         // load class from parent first to avoid same class loaded by different classLoader,
@@ -48,22 +60,67 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
         this.pluginDescriptor = pluginDescriptor;
     }
 
+    public String getPluginId() {
+        return pluginDescriptor.getPluginId();
+    }
+
     public void setPluginFirstClasses(@NonNull List<String> pluginFirstClasses) {
-        this.pluginFirstClasses = pluginFirstClasses.stream()
-                .map(pluginFirstClass -> pluginFirstClass
-                        .replaceAll(".", "[$0]")
-                        .replace("[*]", ".*?")
-                        .replace("[?]", ".?"))
-                .collect(Collectors.toList());
+        this.pluginFirstClasses = compileWildcards(pluginFirstClasses);
+        this.pluginFirstClassesCache.clear();
     }
 
     public void setPluginOnlyResources(@NonNull List<String> pluginOnlyResources) {
-        this.pluginOnlyResources = pluginOnlyResources.stream()
-                .map(pluginFirstClass -> pluginFirstClass
+        this.pluginOnlyResources = compileWildcards(pluginOnlyResources);
+        this.pluginOnlyResourcesCache.clear();
+    }
+
+    @Override
+    public void addURL(URL url) {
+        super.addURL(url);
+        classIndex = null; // rebuild index with new classpath entry
+    }
+
+    /**
+     * Index of classes and resources in plugin classpath, built once it's needed.
+     */
+    public PluginClassIndex getClassIndex() {
+        PluginClassIndex index = classIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = classIndex;
+                if (index == null) {
+                    long ts = System.currentTimeMillis();
+                    index = PluginClassIndex.build(getURLs());
+                    classIndex = index;
+                    log.debug("Plugin {} classpath is indexed in {}ms", pluginDescriptor.getPluginId(),
+                            System.currentTimeMillis() - ts);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Forget resolved class owners in dependencies. Should be called once any plugin
+     * is loaded or unloaded.
+     */
+    public void invalidateDependencyCache() {
+        dependencyClassOwners.clear();
+        missingDependencyClasses.clear();
+    }
+
+    /**
+     * Compile wildcard patterns into one alternation regex, so name matching is done
+     * by a single pass instead of compiling a regex per pattern per call.
+     */
+    private static Pattern compileWildcards(List<String> wildcards) {
+        if (wildcards.isEmpty()) return null;
+        return Pattern.compile(wildcards.stream()
+                .map(wildcard -> "(?:" + wildcard
                         .replaceAll(".", "[$0]")
                         .replace("[*]", ".*?")
-                        .replace("[?]", ".?"))
-                .collect(Collectors.toList());
+                        .replace("[?]", ".?") + ")")
+                .collect(Collectors.joining("|")));
     }
 
     /**
@@ -75,7 +132,7 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
         if (name.endsWith(".class")) return super.getResource(name);
 
         // load plain resource from local classpath
-        URL url = findResource(name);
+        URL url = getClassIndex().containsResource(name) ? findResource(name) : null;
         if (url != null) {
             log.trace("Found resource '{}' in plugin classpath", name);
             return url;
@@ -87,38 +144,76 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
     @Override
     public Enumeration<URL> getResources(String name) throws IOException {
         if (name.endsWith(".class")) return super.getResources(name);
-        return isPluginOnlyResources(name) ? findResources(name) : super.getResources(name);
+        return COMPONENTS_INDEX_RESOURCE.equals(name) || isPluginOnlyResources(name)
+                ? findResources(name) : super.getResources(name);
     }
 
+    /**
+     * Load class in application ~~ plugin ~~ dependencies order. With the help of
+     * {@link PluginClassIndex}, class loaders couldn't own the class are skipped,
+     * and {@link ClassNotFoundException} is only thrown when no one owns it.
+     */
     @Override
     public Class<?> loadClass(String className) throws ClassNotFoundException {
         // if specified, try to load from plugin classpath first
         if (isPluginFirstClass(className)) {
-            try {
-                return loadClassFromPlugin(className);
-            } catch (ClassNotFoundException ignored) {}
+            Class<?> clazz = loadClassFromPlugin(className);
+            if (clazz != null) return clazz;
         }
-        // not found, load from parent
-        return super.loadClass(className);
-    }
+        if (className.startsWith(JAVA_PACKAGE_PREFIX) || className.startsWith(PF4J_PACKAGE_PREFIX)) {
+            return super.loadClass(className);
+        }
+
+        synchronized (getClassLoadingLock(className)) {
+            Class<?> loadedClass = findLoadedClass(className);
+            if (loadedClass != null) return loadedClass;
+
+            boolean ownedByPlugin = getClassIndex().containsClass(className);
+            if (!ownedByPlugin && getDependencyClassOwner(className) == null) {
+                // only application could have it
+                return getParent().loadClass(className);
+            }
 
-    private boolean isPluginFirstClass(String name) {
-        if (pluginFirstClasses == null || pluginFirstClasses.size() <= 0) return false;
-        for (String pluginFirstClass : pluginFirstClasses) {
-            if (name.matches(pluginFirstClass)) return true;
+            // application first. probe class file instead of loading it to avoid creating exception.
+            if (getParent().getResource(PluginClassIndex.toClassResource(className)) != null) {
+                return getParent().loadClass(className);
+            }
+            if (ownedByPlugin) {
+                try {
+                    return findClass(className);
+                } catch (ClassNotFoundException ignored) {} // only happens when index is incomplete
+            }
+            Class<?> clazz = loadClassFromDependencies(className);
+            if (clazz != null) return clazz;
+            throw new ClassNotFoundException(className);
         }
-        return false;
+    }
+
+    boolean isPluginFirstClass(String name) {
+        if (pluginFirstClasses == null) return false;
+        return pluginFirstClassesCache.computeIfAbsent(name,
+                className -> pluginFirstClasses.matcher(className).matches());
     }
 
     private boolean isPluginOnlyResources(String name) {
-        if (pluginOnlyResources == null || pluginOnlyResources.size() <= 0) return false;
-        for (String pluginOnlyResource : pluginOnlyResources) {
-            if (name.matches(pluginOnlyResource)) return true;
-        }
-        return false;
+        if (pluginOnlyResources == null) return false;
+        return pluginOnlyResourcesCache.computeIfAbsent(name,
+                resourceName -> pluginOnlyResources.matcher(resourceName).matches());
     }
 
-    private Class<?> loadClassFromPlugin(String className) throws ClassNotFoundException {
+    private Class<?> loadClassFromPlugin(String className) {
+        Class<?> loadedClass = loadClassLocally(className);
+        if (loadedClass != null) return loadedClass;
+        // try next step
+        return loadClassFromDependencies(className);
+    }
+
+    /**
+     * Load class from plugin classpath only.
+     *
+     * @return null if class is not found
+     */
+    protected Class<?> loadClassLocally(String className) {
         synchronized (getClassLoadingLock(className)) {
             log.trace("Received request to load class '{}'", className);
 
@@ -130,14 +225,13 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
             }
 
             // nope, try to load locally
+            if (!getClassIndex().containsClass(className)) return null;
             try {
                 loadedClass = findClass(className);
                 log.trace("Found class '{}' in plugin classpath", className);
                 return loadedClass;
             } catch (ClassNotFoundException ignored) {}
-
-            // try next step
-            return loadClassFromDependencies(className);
+            return null;
         }
     }
 
@@ -145,36 +239,85 @@ public class SpringBootPluginClassLoader extends PluginClassLoader {
         return findLoadedClass(className);
     }
 
-    protected Class<?> loadClassFromDependencies(String className) {
-        log.trace("Search in dependencies for class '{}'", className);
-        List<PluginDependency> dependencies = pluginDescriptor.getDependencies();
-        for (PluginDependency dependency : dependencies) {
+    /**
+     * Resolve the dependency class loader owning given class, and memoize it. Classes
+     * no dependency owns, e.g. classes of main application or JDK, are only memoized
+     * if some dependency couldn't be told by class index, since index lookup is cheap
+     * and classes directories are checked live in development mode.
+     */
+    private ClassLoader getDependencyClassOwner(String className) {
+        ClassLoader owner = dependencyClassOwners.get(className);
+        if (owner != null || missingDependencyClasses.contains(className)) return owner;
+        owner = findDependencyClassOwner(className, new HashSet<>());
+        if (owner != null) {
+            dependencyClassOwners.putIfAbsent(className, owner);
+        } else if (!isDependencyIndexComplete(new HashSet<>())) {
+            if (missingDependencyClasses.size() >= MAX_MISSING_DEPENDENCY_CLASSES) {
+                missingDependencyClasses.clear();
+            }
+            missingDependencyClasses.add(className);
+        }
+        return owner;
+    }
+
+    private boolean isDependencyIndexComplete(Set<String> visitedPluginIds) {
+        for (PluginDependency dependency : pluginDescriptor.getDependencies()) {
+            if (!visitedPluginIds.add(dependency.getPluginId())) continue;
+            ClassLoader classLoader = pluginManager.getPluginClassLoader(dependency.getPluginId());
+            if (classLoader == null) continue;
+            if (!(classLoader instanceof SpringBootPluginClassLoader)) return false;
+            SpringBootPluginClassLoader pluginClassLoader = (SpringBootPluginClassLoader) classLoader;
+            if (!pluginClassLoader.getClassIndex().isComplete()
+                    || !pluginClassLoader.isDependencyIndexComplete(visitedPluginIds)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walk through dependency graph in depth-first order. Each plugin is visited once
+     * even if it is a shared dependency of several plugins.
+     */
+    private ClassLoader findDependencyClassOwner(String className, Set<String> visitedPluginIds) {
+        for (PluginDependency dependency : pluginDescriptor.getDependencies()) {
+            if (!visitedPluginIds.add(dependency.getPluginId())) continue;
             ClassLoader classLoader = pluginManager.getPluginClassLoader(dependency.getPluginId());
 
             // If the dependency is marked as optional, its class loader might not be available.
-            if (classLoader == null && dependency.isOptional()) {
-                continue;
-            }
+            if (classLoader == null) continue;
+            if (!(classLoader instanceof SpringBootPluginClassLoader)) return classLoader; // couldn't tell, take it as owner
 
-            try {
-                if (classLoader instanceof SpringBootPluginClassLoader) {
-                    // OPTIMIZATION: load classes from loadedClasses only to speed up class loading
-                    Class<?> clazz = ((SpringBootPluginClassLoader) classLoader).getLoadedClass(className);
-                    if (clazz != null) return clazz;
-                    // continue to find class from dependent plugin recursively
-                    clazz = ((SpringBootPluginClassLoader) classLoader).loadClassFromDependencies(className);
-                    if (clazz != null) return clazz;
-                } else {
-                    return classLoader.loadClass(className);
-                }
-            } catch (ClassNotFoundException e) {
-                // try next dependency
+            SpringBootPluginClassLoader pluginClassLoader = (SpringBootPluginClassLoader) classLoader;
+            PluginClassIndex index = pluginClassLoader.getClassIndex();
+            if (index.isComplete()
+                    ? index.containsClass(className)
+                    : pluginClassLoader.loadClassLocally(className) != null) {
+                return pluginClassLoader;
             }
+            // continue to find class from dependent plugin recursively
+            ClassLoader owner = pluginClassLoader.findDependencyClassOwner(className, visitedPluginIds);
+            if (owner != null) return owner;
         }
-
         return null;
     }
 
+    protected Class<?> loadClassFromDependencies(String className) {
+        log.trace("Search in dependencies for class '{}'", className);
+        ClassLoader owner = getDependencyClassOwner(className);
+        if (owner == null) return null;
+
+        if (owner instanceof SpringBootPluginClassLoader) {
+            // OPTIMIZATION: only look into dependent plugin which owns the class
+            return ((SpringBootPluginClassLoader) owner).loadClassLocally(className);
+        }
+        try {
+            return owner.loadClass(className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     @Override
     protected URL findResourceFromDependencies(String name) {
         if (!name.endsWith(".class")) return null; // do not load ordinary resource from dependencies
@@ -15,6 +15,8 @@
  */
 package org.laxture.sbp.internal.webflux;
 
+import org.laxture.sbp.internal.PluginResourceCache;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
 import org.laxture.spring.util.ApplicationContextProvider;
 import org.pf4j.PluginManager;
 import org.pf4j.PluginState;
@@ -23,8 +25,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.resource.PathResourceResolver;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -37,6 +41,24 @@ public class PluginResourceResolver extends PathResourceResolver {
     @Autowired @Lazy
     private PluginManager pluginManager;
 
+    private final PluginResourceCache resourceCache = new PluginResourceCache();
+
+    private PluginStaticResourceStore staticResourceStore;
+
+    /**
+     * Serve resources packaged in plugin jars from extracted files of the store.
+     */
+    public void setStaticResourceStore(PluginStaticResourceStore staticResourceStore) {
+        this.staticResourceStore = staticResourceStore;
+    }
+
+    /**
+     * Evict resources resolved from plugin, or from all plugins if plugin id is null.
+     */
+    public void evictResources(String pluginId) {
+        resourceCache.evict(pluginId);
+    }
+
     @Override
     protected Mono<Resource> getResource(String resourcePath, Resource location) {
         if (!(location instanceof ClassPathResource)) return null;
@@ -49,11 +71,19 @@ public class PluginResourceResolver extends PathResourceResolver {
         }
 
         try {
+            String path = StringUtils.applyRelativePath(classPathLocation.getPath(), resourcePath);
             for (PluginWrapper plugin : pluginManager.getPlugins(PluginState.STARTED)) {
+                Resource resource = resourceCache.get(plugin.getPluginId(), path);
+                if (resource != null) return Mono.just(resource);
+                // skip plugins not packaging it, without probing their jar
+                if (!PluginResourceCache.mayContain(plugin, path)) continue;
+
                 Resource pluginLocation = new ClassPathResource(classPathLocation.getPath(), plugin.getPluginClassLoader());
-                Resource resource = pluginLocation.createRelative(resourcePath);
+                resource = pluginLocation.createRelative(resourcePath);
                 if (resource.isReadable()) {
                     if (checkResource(resource, pluginLocation)) {
+                        if (staticResourceStore != null) return extract(plugin.getPluginId(), path, resource);
+                        resourceCache.put(plugin.getPluginId(), path, resource);
                         return Mono.just(resource);
                     } else if (logger.isWarnEnabled()) {
                         Resource[] allowedLocations = getAllowedLocations();
@@ -69,4 +99,18 @@ public class PluginResourceResolver extends PathResourceResolver {
         }
         return super.getResource(resourcePath, location);
     }
+
+    /**
+     * Extracting copies and hashes resource content, which must not block event loop.
+     */
+    private Mono<Resource> extract(String pluginId, String path, Resource resource) {
+        Resource extracted = staticResourceStore.getExtracted(resource);
+        if (extracted != null) {
+            resourceCache.put(pluginId, path, extracted);
+            return Mono.just(extracted);
+        }
+        return Mono.fromCallable(() -> staticResourceStore.extract(resource))
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnNext(extractedResource -> resourceCache.put(pluginId, path, extractedResource));
+    }
 }
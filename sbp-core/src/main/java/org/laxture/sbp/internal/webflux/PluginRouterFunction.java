@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.internal.webflux;
+
+import org.laxture.sbp.internal.RoutePatternCollector;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.server.*;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Composite {@link RouterFunction} of started plugins. It's registered to main application
+ * as a single bean and composed into `routerFunctionMapping` once, then each plugin contributes
+ * or withdraws its own sub-router here, without rebuilding router functions of the whole application.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class PluginRouterFunction implements RouterFunction<ServerResponse> {
+
+    private final Map<String, RouterFunction<ServerResponse>> pluginRouters = new LinkedHashMap<>();
+    private volatile RouterFunction<ServerResponse> composite;
+
+    /**
+     * Replace router functions contributed by plugin. Empty router functions withdraw them.
+     */
+    public synchronized void register(String pluginId, Collection<?> routerFunctions) {
+        RouterFunction<ServerResponse> router = compose(routerFunctions);
+        if (router == null) {
+            pluginRouters.remove(pluginId);
+        } else {
+            pluginRouters.put(pluginId, router);
+        }
+        composite = compose(pluginRouters.values());
+    }
+
+    public synchronized void unregister(String pluginId) {
+        if (pluginRouters.remove(pluginId) != null) composite = compose(pluginRouters.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RouterFunction<ServerResponse> compose(Collection<?> routerFunctions) {
+        return routerFunctions.stream()
+            .map(routerFunction -> (RouterFunction<ServerResponse>) routerFunction)
+            .reduce(RouterFunction::and).orElse(null);
+    }
+
+    @Override
+    public Mono<HandlerFunction<ServerResponse>> route(ServerRequest request) {
+        RouterFunction<ServerResponse> router = composite;
+        return router != null ? router.route(request) : Mono.empty();
+    }
+
+    @Override
+    public void accept(RouterFunctions.Visitor visitor) {
+        RouterFunction<ServerResponse> router = composite;
+        if (router != null) router.accept(visitor);
+    }
+
+    /**
+     * @return URL patterns served by the router function.
+     */
+    public static Set<String> getPatterns(RouterFunction<?> routerFunction) {
+        RoutePatternCollector collector = new RoutePatternCollector();
+        RequestPredicates.Visitor predicateVisitor = new RequestPredicates.Visitor() {
+            @Override public void method(Set<HttpMethod> methods) {}
+            @Override public void path(String pattern) { collector.path(pattern); }
+            @Override public void pathExtension(String extension) {}
+            @Override public void header(String name, String value) {}
+            @Override public void queryParam(String name, String value) {}
+            @Override public void startAnd() {}
+            @Override public void and() {}
+            @Override public void endAnd() {}
+            @Override public void startOr() {}
+            @Override public void or() {}
+            @Override public void endOr() {}
+            @Override public void startNegate() { collector.startNegate(); }
+            @Override public void endNegate() { collector.endNegate(); }
+            @Override public void unknown(RequestPredicate predicate) {}
+        };
+        routerFunction.accept(new RouterFunctions.Visitor() {
+            @Override
+            public void startNested(RequestPredicate predicate) {
+                collector.startPredicate();
+                predicate.accept(predicateVisitor);
+                collector.startNested();
+            }
+
+            @Override
+            public void endNested(RequestPredicate predicate) {
+                collector.endNested();
+            }
+
+            @Override
+            public void route(RequestPredicate predicate, HandlerFunction<?> handlerFunction) {
+                collector.startPredicate();
+                predicate.accept(predicateVisitor);
+                collector.route();
+            }
+
+            @Override
+            public void resources(Function<ServerRequest, Mono<Resource>> lookupFunction) {
+                collector.any();
+            }
+
+            @Override
+            public void attributes(Map<String, Object> attributes) {}
+
+            @Override
+            public void unknown(RouterFunction<?> routerFunction) {
+                collector.any();
+            }
+        });
+        return collector.getPatterns();
+    }
+}
@@ -15,19 +15,47 @@
  */
 package org.laxture.sbp.internal.webmvc;
 
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.laxture.sbp.SpringBootPlugin;
 import org.laxture.sbp.internal.PluginRequestMappingAdapter;
+import org.laxture.sbp.internal.PluginRoutingTable;
+import org.laxture.sbp.util.BeanUtil;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
-import java.util.HashMap;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @author <a href="https://github.com/hank-cp">Hank CP</a>
  */
+@Slf4j
 public class PluginRequestMappingHandlerMapping extends RequestMappingHandlerMapping
     implements PluginRequestMappingAdapter {
 
+    // request mappings registered by each plugin controller, keyed by controller instance
+    private final Map<Object, Set<RequestMappingInfo>> controllerMappings =
+        Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // read/write lock of MappingRegistry, request lookups take the read lock
+    private volatile ReentrantReadWriteLock mappingLock;
+
+    private final PluginRoutingTable<RequestMappingInfo> routingTable =
+        new PluginRoutingTable<>(RequestMappingInfo::getPatternValues);
+
+    // nesting depth of runWithMappingsLocked, only touched while holding the write lock
+    private int batchDepth;
+
+    private volatile PluginRouterFunction pluginRouterFunction;
+    private volatile Method initRouterFunctionsMethod;
+
     /**
      * {@inheritDoc}
      */
@@ -36,24 +64,195 @@ public class PluginRequestMappingHandlerMapping extends RequestMappingHandlerMap
         super.detectHandlerMethods(controller);
     }
 
+    @Override
+    protected void registerHandlerMethod(Object handler, Method method, RequestMappingInfo mapping) {
+        super.registerHandlerMethod(handler, method, mapping);
+        // main app controllers are registered by bean name, only plugin controllers are recorded
+        if (!(handler instanceof String)) {
+            controllerMappings.computeIfAbsent(handler, key -> new LinkedHashSet<>()).add(mapping);
+        }
+    }
+
     @Override
     public void registerController(SpringBootPlugin springBootPlugin, String beanName, Object controller) {
         // unregister RequestMapping if already registered
-        unregisterController(springBootPlugin, controller);
+        if (isControllerRegistered(controller)) unregisterController(springBootPlugin, controller);
         springBootPlugin.registerBeanToMainContext(beanName, controller);
-        detectHandlerMethods(controller);
+        String pluginId = springBootPlugin.getWrapper().getPluginId();
+        runWithMappingsLocked(() -> {
+            registerControllerMappings(controller);
+            routingTable.addMappings(pluginId, springBootPlugin.getBasePath(),
+                controllerMappings.getOrDefault(controller, Collections.emptySet()));
+        });
     }
 
     @Override
     public void unregisterController(SpringBootPlugin springBootPlugin, Object controller) {
-        new HashMap<>(getHandlerMethods()).forEach((mapping, handlerMethod) -> {
-            if (controller == handlerMethod.getBean()) super.unregisterMapping(mapping);
+        String pluginId = springBootPlugin.getWrapper().getPluginId();
+        runWithMappingsLocked(() -> {
+            Set<RequestMappingInfo> mappings = controllerMappings.get(controller);
+            if (mappings != null) routingTable.removeMappings(pluginId, new ArrayList<>(mappings));
+            unregisterControllerMappings(controller);
         });
         springBootPlugin.unregisterBeanFromMainContext(controller);
     }
 
+    @Override
+    public boolean isControllerRegistered(Object controller) {
+        return controllerMappings.containsKey(controller);
+    }
+
+    @Override
+    public void registerControllerMappings(Object controller) {
+        runWithMappingsLocked(() -> detectHandlerMethods(controller));
+    }
+
+    @Override
+    public void unregisterControllerMappings(Object controller) {
+        runWithMappingsLocked(() -> {
+            Set<RequestMappingInfo> mappings = controllerMappings.remove(controller);
+            if (mappings != null) mappings.forEach(super::unregisterMapping);
+        });
+    }
+
+    @Override
+    public void registerMapping(RequestMappingInfo mapping, Object handler, Method method) {
+        runWithMappingsLocked(() -> super.registerMapping(mapping, handler, method));
+    }
+
+    @Override
+    public void unregisterMapping(RequestMappingInfo mapping) {
+        runWithMappingsLocked(() -> super.unregisterMapping(mapping));
+    }
+
+    /**
+     * Routes are rebuilt once when the outermost changes are done, against a snapshot
+     * of registered mappings taken under the write lock.
+     */
+    @Override
+    public void runWithMappingsLocked(Runnable changes) {
+        ReentrantReadWriteLock lock = getMappingLock();
+        if (lock == null) {
+            // lock is not accessible, apply changes one by one
+            changes.run();
+            routingTable.rebuild(getHandlerMethods());
+            return;
+        }
+        // MappingRegistry takes the same lock for each change, it's reentrant
+        lock.writeLock().lock();
+        try {
+            batchDepth++;
+            try {
+                changes.run();
+            } finally {
+                batchDepth--;
+            }
+            if (batchDepth == 0) routingTable.rebuild(getHandlerMethods());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock getMappingLock() {
+        if (mappingLock == null) {
+            mappingLock = BeanUtil.getFieldValue(this, "mappingRegistry.readWriteLock");
+        }
+        return mappingLock;
+    }
+
+    /**
+     * Requests under base path of a plugin are matched against mappings of that plugin only,
+     * unless the base path is contended by mappings outside the plugin.
+     * No match, ambiguous match and CORS pre-flight requests are left to Spring.
+     */
+    @Override
+    protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        PluginRoutingTable.Route<RequestMappingInfo> route = routingTable.lookup(lookupPath);
+        if (route == null || CorsUtils.isPreFlightRequest(request)) {
+            return super.lookupHandlerMethod(lookupPath, request);
+        }
+
+        Comparator<RequestMappingInfo> comparator = getMappingComparator(request);
+        RequestMappingInfo bestMapping = null;
+        HandlerMethod bestHandlerMethod = null;
+        boolean ambiguous = false;
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : route.getMappings().entrySet()) {
+            RequestMappingInfo mapping = getMatchingMapping(entry.getKey(), request);
+            if (mapping == null) continue;
+            int compare = bestMapping == null ? -1 : comparator.compare(mapping, bestMapping);
+            if (compare < 0) {
+                bestMapping = mapping;
+                bestHandlerMethod = entry.getValue();
+                ambiguous = false;
+            } else if (compare == 0) {
+                ambiguous = true;
+            }
+        }
+        if (bestMapping == null || ambiguous) return super.lookupHandlerMethod(lookupPath, request);
+
+        request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, bestHandlerMethod);
+        handleMatch(bestMapping, lookupPath, request);
+        return bestHandlerMethod;
+    }
+
+    @Override
+    public void updatePluginRoute(SpringBootPlugin springBootPlugin, Collection<Object> controllers) {
+        String pluginId = springBootPlugin.getWrapper().getPluginId();
+        List<RequestMappingInfo> mappings = new ArrayList<>();
+        controllers.forEach(controller -> mappings.addAll(
+            controllerMappings.getOrDefault(controller, Collections.emptySet())));
+        runWithMappingsLocked(() -> routingTable.register(pluginId, springBootPlugin.getBasePath(), mappings));
+    }
+
+    @Override
+    public Set<String> getMappingPatterns(Object controller) {
+        Set<String> patterns = new LinkedHashSet<>();
+        controllerMappings.getOrDefault(controller, Collections.emptySet())
+            .forEach(mapping -> patterns.addAll(mapping.getPatternValues()));
+        return patterns;
+    }
+
     @Override
     public Class<?> getRouterFunctionClass() {
         return RouterFunction.class;
     }
+
+    @Override
+    public Set<String> getRouterFunctionPatterns(Object routerFunction) {
+        return PluginRouterFunction.getPatterns((RouterFunction<?>) routerFunction);
+    }
+
+    @Override
+    public void updateRouterFunctions(SpringBootPlugin springBootPlugin, Collection<Object> routerFunctions) {
+        PluginRouterFunction routerFunction = getPluginRouterFunction(springBootPlugin);
+        if (routerFunction != null) {
+            routerFunction.register(springBootPlugin.getWrapper().getPluginId(), routerFunctions);
+        } else {
+            // composite router is not available, rebuild router functions from all beans
+            initRouterFunctions(springBootPlugin);
+        }
+    }
+
+    private PluginRouterFunction getPluginRouterFunction(SpringBootPlugin springBootPlugin) {
+        if (pluginRouterFunction == null) {
+            pluginRouterFunction = springBootPlugin.getMainApplicationContext()
+                .getBeanProvider(PluginRouterFunction.class).getIfAvailable();
+        }
+        return pluginRouterFunction;
+    }
+
+    private void initRouterFunctions(SpringBootPlugin springBootPlugin) {
+        ApplicationContext mainContext = springBootPlugin.getMainApplicationContext();
+        if (!mainContext.containsBean("routerFunctionMapping")) return;
+        Object mapping = mainContext.getBean("routerFunctionMapping");
+        if (initRouterFunctionsMethod == null) {
+            initRouterFunctionsMethod = BeanUtil.getDeclaredMethod(mapping.getClass(), "initRouterFunctions");
+        }
+        if (initRouterFunctionsMethod == null) return;
+        try {
+            initRouterFunctionsMethod.invoke(mapping);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            log.warn("Failed to init router functions. {}", e.getMessage());
+        }
+    }
 }
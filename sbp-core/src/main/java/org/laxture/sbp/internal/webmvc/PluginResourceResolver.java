@@ -15,6 +15,8 @@
  */
 package org.laxture.sbp.internal.webmvc;
 
+import org.laxture.sbp.internal.PluginResourceCache;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
 import org.laxture.spring.util.ApplicationContextProvider;
 import org.pf4j.PluginManager;
 import org.pf4j.PluginState;
@@ -23,6 +25,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.resource.PathResourceResolver;
 
 import java.io.IOException;
@@ -36,6 +39,24 @@ public class PluginResourceResolver extends PathResourceResolver {
     @Autowired @Lazy
     private PluginManager pluginManager;
 
+    private final PluginResourceCache resourceCache = new PluginResourceCache();
+
+    private PluginStaticResourceStore staticResourceStore;
+
+    /**
+     * Serve resources packaged in plugin jars from extracted files of the store.
+     */
+    public void setStaticResourceStore(PluginStaticResourceStore staticResourceStore) {
+        this.staticResourceStore = staticResourceStore;
+    }
+
+    /**
+     * Evict resources resolved from plugin, or from all plugins if plugin id is null.
+     */
+    public void evictResources(String pluginId) {
+        resourceCache.evict(pluginId);
+    }
+
     @Override
     protected Resource getResource(String resourcePath, Resource location) throws IOException {
         if (!(location instanceof ClassPathResource)) return null;
@@ -47,11 +68,19 @@ public class PluginResourceResolver extends PathResourceResolver {
             pluginManager = ApplicationContextProvider.getBean(PluginManager.class);
         }
 
+        String path = StringUtils.applyRelativePath(classPathLocation.getPath(), resourcePath);
         for (PluginWrapper plugin : pluginManager.getPlugins(PluginState.STARTED)) {
+            Resource resource = resourceCache.get(plugin.getPluginId(), path);
+            if (resource != null) return resource;
+            // skip plugins not packaging it, without probing their jar
+            if (!PluginResourceCache.mayContain(plugin, path)) continue;
+
             Resource pluginLocation = new ClassPathResource(classPathLocation.getPath(), plugin.getPluginClassLoader());
-            Resource resource = pluginLocation.createRelative(resourcePath);
+            resource = pluginLocation.createRelative(resourcePath);
             if (resource.isReadable()) {
                 if (checkResource(resource, pluginLocation)) {
+                    if (staticResourceStore != null) resource = staticResourceStore.extract(resource);
+                    resourceCache.put(plugin.getPluginId(), path, resource);
                     return resource;
                 }
                 else if (logger.isWarnEnabled()) {
@@ -33,7 +33,21 @@ public class SbpPluginStateChangedEvent extends ApplicationEvent {
 
     private static final long serialVersionUID = 1653148906452766719L;
 
+    private final String pluginId;
+
     public SbpPluginStateChangedEvent(ApplicationContext mainApplicationContext) {
+        this(mainApplicationContext, null);
+    }
+
+    public SbpPluginStateChangedEvent(ApplicationContext mainApplicationContext, String pluginId) {
         super(mainApplicationContext);
+        this.pluginId = pluginId;
+    }
+
+    /**
+     * @return id of the plugin changed, or null if plugins are changed in batch.
+     */
+    public String getPluginId() {
+        return pluginId;
     }
 }
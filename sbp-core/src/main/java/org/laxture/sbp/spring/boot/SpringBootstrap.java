@@ -15,18 +15,16 @@
  */
 package org.laxture.sbp.spring.boot;
 
-import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.implementation.InvocationHandlerAdapter;
 import net.bytebuddy.matcher.ElementMatchers;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.laxture.sbp.SpringBootPlugin;
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.MainBeanRegistryIndex;
+import org.laxture.sbp.internal.PluginBootstrapSnapshot;
 import org.laxture.sbp.internal.PluginListableBeanFactory;
 import org.laxture.sbp.internal.SpringBootPluginClassLoader;
 import org.laxture.sbp.util.BeanUtil;
-import org.laxture.sbp.util.OmitInvocationHandler;
-import org.laxture.sbp.util.ProxyInvocationHandler;
 import org.pf4j.PluginDependency;
 import org.pf4j.PluginWrapper;
 import org.slf4j.Logger;
@@ -39,7 +37,9 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringBootVersion;
 import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -53,8 +53,8 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -70,8 +70,6 @@ public class SpringBootstrap extends SpringApplication {
     public final static String BEAN_PLUGIN = "pf4j.plugin";
     public final static String BEAN_IMPORTED_BEAN_NAMES = "sharedBeanNames";
 
-    private static final String PROPERTY_NAME_AUTOCONFIGURE_EXCLUDE = "spring.autoconfigure.exclude";
-
     public static final String[] DEFAULT_EXCLUDE_CONFIGURATIONS = {
         "org.laxture.sbp.spring.boot.SbpAutoConfiguration",
         "org.laxture.sbp.spring.boot.SbpWebFluxPatchAutoConfiguration",
@@ -224,12 +222,20 @@ public class SpringBootstrap extends SpringApplication {
         "org.springframework.cloud.consul.support.ConsulHeartbeatAutoConfiguration"
     };
 
+    // shared by all plugins, duplicated items are tolerated
+    private static final Set<String> DEFAULT_EXCLUDE_CONFIGURATION_SET =
+        Set.copyOf(Arrays.asList(DEFAULT_EXCLUDE_CONFIGURATIONS));
+
     public static final String[] DEFAULT_EXCLUDE_APPLICATION_LISTENERS = {
         "org.springframework.cloud.bootstrap.BootstrapApplicationListener",
         "org.springframework.cloud.bootstrap.LoggingSystemShutdownListener",
         "org.springframework.cloud.context.restart.RestartListener",
     };
 
+    // package private in Spring Boot
+    private static final String ON_CLASS_CONDITION =
+        "org.springframework.boot.autoconfigure.condition.OnClassCondition";
+
     private final SpringBootPlugin plugin;
 
     private final GenericApplicationContext mainApplicationContext;
@@ -242,12 +248,20 @@ public class SpringBootstrap extends SpringApplication {
 
     private final HashSet<String> importedBeanNames = new HashSet<>();
 
+    // source ApplicationContext -> beans known to be missing in it during this boot
+    private final Map<ApplicationContext, Set<String>> missingBeanNames = new IdentityHashMap<>();
+    private boolean booting;
+
     private final Map<String, Object> presetProperties = new HashMap<>();
 
     private List<String> pluginFirstClasses;
 
     private List<String> pluginOnlyResources;
 
+    private PluginBootstrapSnapshot bootstrapSnapshot;
+
+    private volatile Set<String> excludeConfigurations;
+
     /**
      * Constructor should be the only thing need to take care for this Class.
      * Generally new an instance and {@link #run(String...)} it
@@ -266,8 +280,6 @@ public class SpringBootstrap extends SpringApplication {
         Map<String, Object> presetProperties = ((SpringBootPluginManager)
             plugin.getWrapper().getPluginManager()).getPresetProperties();
         if (presetProperties != null) this.presetProperties.putAll(presetProperties);
-        this.presetProperties.put(PROPERTY_NAME_AUTOCONFIGURE_EXCLUDE,
-            getExcludeConfigurations());
     }
 
     public GenericApplicationContext getMainApplicationContext() {
@@ -301,6 +313,46 @@ public class SpringBootstrap extends SpringApplication {
         return this;
     }
 
+    /**
+     * Snapshot of last bootstrap, only available while bootstrap cache is enabled.
+     */
+    public PluginBootstrapSnapshot getBootstrapSnapshot() {
+        return bootstrapSnapshot;
+    }
+
+    @Override
+    public ConfigurableApplicationContext run(String... args) {
+        Path bootstrapCacheDir = ((SpringBootPluginManager)
+            plugin.getWrapper().getPluginManager()).getBootstrapCacheDir();
+        if (bootstrapCacheDir != null) {
+            bootstrapSnapshot = PluginBootstrapSnapshot.load(
+                bootstrapCacheDir, plugin.getWrapper(), getMainAppFingerprint());
+            log.debug("Bootstrap snapshot of plugin {} is {}", plugin.getWrapper().getPluginId(),
+                (bootstrapSnapshot.isHit() ? "hit" : "missed"));
+        }
+        booting = true;
+        try {
+            return super.run(args);
+        } finally {
+            // don't hold contexts if startup failed before refreshed
+            booting = false;
+            missingBeanNames.clear();
+        }
+    }
+
+    /**
+     * Everything outside plugin jar could affect class conditions of auto-configurations.
+     */
+    private String getMainAppFingerprint() {
+        String[] profiles = ((SpringBootPluginManager)
+            plugin.getWrapper().getPluginManager()).getProfiles();
+        return String.join("\n",
+            SpringBootVersion.getVersion(),
+            PluginBootstrapSnapshot.getClasspathFingerprint(mainApplicationContext.getClassLoader()),
+            plugin.getWrapper().getDescriptor().getVersion(),
+            Arrays.toString(profiles));
+    }
+
     @Override
     protected void configurePropertySources(ConfigurableEnvironment environment,
                                             String[] args) {
@@ -337,13 +389,25 @@ public class SpringBootstrap extends SpringApplication {
     }
 
     /**
-     * Override this methods to customize excluded spring boot configuration
+     * Auto-configurations excluded from plugin {@link ApplicationContext}, which are
+     * {@link #DEFAULT_EXCLUDE_CONFIGURATIONS} plus {@link SpringBootPlugin#getExcludeConfigurations()}.
+     * It's computed once and rejected by `PluginExcludeConfigurationFilter` before
+     * auto-configuration metadata is read.
      */
-    private String[] getExcludeConfigurations() {
-        Set<String> configurations = new HashSet<>(
-            Arrays.asList(DEFAULT_EXCLUDE_CONFIGURATIONS));
-        configurations.addAll(plugin.getExcludeConfigurations());
-        return configurations.toArray(new String[]{});
+    public Set<String> getExcludeConfigurations() {
+        Set<String> configurations = excludeConfigurations;
+        if (configurations == null) {
+            Set<String> pluginConfigurations = plugin.getExcludeConfigurations();
+            if (pluginConfigurations.isEmpty()) {
+                configurations = DEFAULT_EXCLUDE_CONFIGURATION_SET;
+            } else {
+                Set<String> union = new HashSet<>(DEFAULT_EXCLUDE_CONFIGURATION_SET);
+                union.addAll(pluginConfigurations);
+                configurations = Set.copyOf(union);
+            }
+            excludeConfigurations = configurations;
+        }
+        return configurations;
     }
 
     protected String[] getExcludeApplicationListeners() {
@@ -374,11 +438,10 @@ public class SpringBootstrap extends SpringApplication {
         applicationContext.getBeanFactory().autowireBean(plugin);
 
         if (!CollectionUtils.isEmpty(importBeanNames)) {
-            for (String beanName : importBeanNames) {
-                // try to import bean from main applicationContext first
-                boolean imported = importBeanFromMainContext(applicationContext, beanName);
+            // try to import bean from main applicationContext first
+            for (String beanName : importBeansFromMainContext(applicationContext, importBeanNames)) {
                 // not found, try to import bean from dependent applicationContext
-                if (!imported) imported = importBeanFromDependentPlugin(applicationContext, beanName);
+                boolean imported = importBeanFromDependentPlugin(applicationContext, beanName);
                 if (!imported) log.error("Bean {} is not found", beanName);
             }
         }
@@ -399,9 +462,29 @@ public class SpringBootstrap extends SpringApplication {
     @Override
     protected void afterRefresh(ConfigurableApplicationContext context, ApplicationArguments args) {
         context.getBeanFactory().registerSingleton(BEAN_IMPORTED_BEAN_NAMES, importedBeanNames);
+        if (bootstrapSnapshot != null && !bootstrapSnapshot.isHit()) {
+            bootstrapSnapshot.save(getSkippedConfigurations(context));
+        }
         this.plugin.afterPluginBootstrap(this, (GenericApplicationContext) context);
     }
 
+    /**
+     * Configuration classes skipped by class conditions only. Those skipped by
+     * any other condition, e.g. on property or bean, have to be evaluated again in next start.
+     */
+    private Set<String> getSkippedConfigurations(ConfigurableApplicationContext context) {
+        ConditionEvaluationReport report = ConditionEvaluationReport.get(context.getBeanFactory());
+        return report.getConditionAndOutcomesBySource().entrySet().stream()
+            .filter(entry -> !entry.getKey().contains("#")) // skip @Bean method
+            .filter(entry -> !entry.getValue().isFullMatch())
+            .filter(entry -> entry.getValue().stream()
+                .filter(conditionAndOutcome -> !conditionAndOutcome.getOutcome().isMatch())
+                .allMatch(conditionAndOutcome -> ON_CLASS_CONDITION.equals(
+                    conditionAndOutcome.getCondition().getClass().getName())))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+    }
+
     private void hackBeanFactory(ApplicationContext applicationContext) {
         if (pluginClassLoader instanceof SpringBootPluginClassLoader) {
             if (pluginFirstClasses != null) {
@@ -421,16 +504,6 @@ public class SpringBootstrap extends SpringApplication {
         }
     }
 
-    private <T> BiFunction<T, DynamicType.Builder<T>, DynamicType.Builder<T>> beanProxyHandler() {
-        return (source, builder) -> builder
-            .method(ElementMatchers.any())
-                .intercept(InvocationHandlerAdapter.of(new ProxyInvocationHandler(source)))
-            .method(ElementMatchers.anyOf(
-                BeanUtil.getMethod(InitializingBean.class, "afterPropertiesSet"),
-                BeanUtil.getMethod(DisposableBean.class, "destroy")))
-            .intercept(InvocationHandlerAdapter.of(new OmitInvocationHandler()));
-    }
-
     /**
      * wrap to proxy to prevent plugin application BeanFactory affect imported beans
      * AOP proxy bean couldn't wrap by another layer of proxy
@@ -439,7 +512,9 @@ public class SpringBootstrap extends SpringApplication {
         if (((bean instanceof InitializingBean) || (bean instanceof DisposableBean))
             && !AopUtils.isCglibProxy(bean)) {
             try {
-                bean = BeanUtil.createProxy(bean, beanProxyHandler());
+                bean = BeanUtil.createDelegatingProxy(bean, ElementMatchers.anyOf(
+                    BeanUtil.getMethod(InitializingBean.class, "afterPropertiesSet"),
+                    BeanUtil.getMethod(DisposableBean.class, "destroy")));
             } catch (Throwable ex) {
                     /* TODO ByteBuddy couldn't deal with private inner class like:
                         - org.springframework.orm.jpa.JpaTransactionManager$JpaTransactionObject */
@@ -451,6 +526,7 @@ public class SpringBootstrap extends SpringApplication {
     protected boolean importBean(GenericApplicationContext sourceApplicationContext,
                                  GenericApplicationContext applicationContext,
                                  String beanName) {
+        if (!containsBean(sourceApplicationContext, beanName)) return false;
         try {
             Object bean = sourceApplicationContext.getBean(beanName);
             importBeanDefinition(sourceApplicationContext, applicationContext, beanName);
@@ -471,13 +547,15 @@ public class SpringBootstrap extends SpringApplication {
                                  GenericApplicationContext applicationContext,
                                  Class<?> beanClass) {
         try {
-            Map<String, ?> beans = sourceApplicationContext.getBeansOfType(beanClass);
-            if (beans.isEmpty()) {
+            String[] beanNames = sourceApplicationContext == mainApplicationContext
+                ? getMainBeanRegistryIndex().getBeanNamesForType(beanClass)
+                : sourceApplicationContext.getBeanNamesForType(beanClass);
+            if (beanNames.length == 0) {
                 return false;
             }
-            for (String beanName : beans.keySet()) {
+            for (String beanName : beanNames) {
                 if (applicationContext.containsBean(beanName)) continue;
-                Object bean = beans.get(beanName);
+                Object bean = sourceApplicationContext.getBean(beanName);
                 bean = buildProxy(bean);
                 importBeanDefinition(sourceApplicationContext, applicationContext, beanName);
                 applicationContext.getBeanFactory().registerSingleton(beanName, bean);
@@ -501,6 +579,47 @@ public class SpringBootstrap extends SpringApplication {
         return importBean(mainApplicationContext, applicationContext, beanClass);
     }
 
+    /**
+     * Import beans from main {@link ApplicationContext} in one go. Beans are resolved
+     * against {@link MainBeanRegistryIndex} shared by all plugins.
+     *
+     * @return names of beans not found in main {@link ApplicationContext}
+     */
+    public Set<String> importBeansFromMainContext(GenericApplicationContext applicationContext,
+                                                  String... beanNames) {
+        return importBeansFromMainContext(applicationContext, Arrays.asList(beanNames));
+    }
+
+    public Set<String> importBeansFromMainContext(GenericApplicationContext applicationContext,
+                                                  Collection<String> beanNames) {
+        Set<String> notFoundBeanNames = new LinkedHashSet<>();
+        for (String beanName : beanNames) {
+            if (!importBean(mainApplicationContext, applicationContext, beanName)) {
+                notFoundBeanNames.add(beanName);
+            }
+        }
+        return notFoundBeanNames;
+    }
+
+    /**
+     * Exception-free bean lookup. Missing beans are remembered during this boot,
+     * so they won't be looked up again in the same {@link ApplicationContext}.
+     */
+    private boolean containsBean(GenericApplicationContext sourceApplicationContext, String beanName) {
+        Set<String> missing = booting ? missingBeanNames.computeIfAbsent(
+            sourceApplicationContext, key -> new HashSet<>()) : new HashSet<>();
+        if (missing.contains(beanName)) return false;
+        boolean found = sourceApplicationContext == mainApplicationContext
+            ? getMainBeanRegistryIndex().containsBean(beanName)
+            : sourceApplicationContext.containsBean(beanName);
+        if (!found) missing.add(beanName);
+        return found;
+    }
+
+    private MainBeanRegistryIndex getMainBeanRegistryIndex() {
+        return ((SpringBootPluginManager) plugin.getWrapper().getPluginManager()).getMainBeanRegistryIndex();
+    }
+
     public boolean importBeanFromDependentPlugin(GenericApplicationContext applicationContext, String beanName) {
         for (PluginDependency dependency : plugin.getWrapper().getDescriptor().getDependencies()) {
             PluginWrapper dependentPlugin = plugin.getPluginManager().getPlugin(dependency.getPluginId());
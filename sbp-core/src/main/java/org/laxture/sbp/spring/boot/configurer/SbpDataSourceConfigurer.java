@@ -45,20 +45,21 @@ public class SbpDataSourceConfigurer implements IPluginConfigurer {
     @Override
     public void onBootstrap(SpringBootstrap bootstrap,
                             GenericApplicationContext pluginApplicationContext) {
-        // share dataSource
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "dataSource");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "transactionManager");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "jdbcTemplate");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "namedParameterJdbcTemplate");
-        // share MongoDbFactory
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "mongoDbFactory");
-        // share redis
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "redisConnectionFactory");
-        // share Jooq
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "dataSourceConnectionProvider");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "transactionProvider");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "dslContext");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "jooqConfiguration");
+        bootstrap.importBeansFromMainContext(pluginApplicationContext,
+            // share dataSource
+            "dataSource",
+            "transactionManager",
+            "jdbcTemplate",
+            "namedParameterJdbcTemplate",
+            // share MongoDbFactory
+            "mongoDbFactory",
+            // share redis
+            "redisConnectionFactory",
+            // share Jooq
+            "dataSourceConnectionProvider",
+            "transactionProvider",
+            "dslContext",
+            "jooqConfiguration");
 
 //        // share dataSource
 //        bootstrap.importBeanFromMainContext(pluginApplicationContext, "dataSource");
@@ -41,7 +41,8 @@ public class SbpJtaConfigurer implements IPluginConfigurer {
     @Override
     public void onBootstrap(SpringBootstrap bootstrap,
                             GenericApplicationContext pluginApplicationContext) {
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "xaDataSourceWrapper");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "transactionManager");
+        bootstrap.importBeansFromMainContext(pluginApplicationContext,
+            "xaDataSourceWrapper",
+            "transactionManager");
     }
 }
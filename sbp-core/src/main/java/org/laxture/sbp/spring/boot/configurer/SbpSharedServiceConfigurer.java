@@ -46,23 +46,24 @@ public class SbpSharedServiceConfigurer implements IPluginConfigurer {
     @Override
     public void onBootstrap(SpringBootstrap bootstrap,
                             GenericApplicationContext pluginApplicationContext) {
-        // async
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "quartzScheduler");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "taskExecutorBuilder");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "applicationTaskExecutor");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "taskScheduler");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "taskSchedulerBuilder");
-        // clients
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "restTemplateBuilderConfigurer");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "restTemplateBuilder");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "multipartResolver");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "multipartConfigElement");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "webClientHttpConnector");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "webClientHttpConnectorCustomizer");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "webClientSsl");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "webClientBuilder");
-        // misc.
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "jacksonObjectMapper");
-        bootstrap.importBeanFromMainContext(pluginApplicationContext, "messageConverters");
+        bootstrap.importBeansFromMainContext(pluginApplicationContext,
+            // async
+            "quartzScheduler",
+            "taskExecutorBuilder",
+            "applicationTaskExecutor",
+            "taskScheduler",
+            "taskSchedulerBuilder",
+            // clients
+            "restTemplateBuilderConfigurer",
+            "restTemplateBuilder",
+            "multipartResolver",
+            "multipartConfigElement",
+            "webClientHttpConnector",
+            "webClientHttpConnectorCustomizer",
+            "webClientSsl",
+            "webClientBuilder",
+            // misc.
+            "jacksonObjectMapper",
+            "messageConverters");
     }
 }
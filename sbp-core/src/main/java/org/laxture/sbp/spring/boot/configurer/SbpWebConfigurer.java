@@ -16,6 +16,7 @@
 package org.laxture.sbp.spring.boot.configurer;
 
 import org.laxture.sbp.SpringBootPlugin;
+import org.laxture.sbp.SpringBootPluginManager;
 import org.laxture.sbp.internal.PluginRequestMappingAdapter;
 import org.laxture.sbp.spring.boot.IPluginConfigurer;
 import org.pf4j.PluginWrapper;
@@ -35,14 +36,12 @@ public class SbpWebConfigurer implements IPluginConfigurer {
 
     @Override
     public void onStart(SpringBootPlugin plugin) {
-        getMainRequestMapping(plugin).registerControllers(plugin);
-        getMainRequestMapping(plugin).registerRouterFunction(plugin);
+        getMainRequestMapping(plugin).registerPlugin(plugin);
     }
 
     @Override
     public void onStop(SpringBootPlugin plugin) {
-        getMainRequestMapping(plugin).unregisterControllers(plugin);
-        getMainRequestMapping(plugin).unregisterRouterFunction(plugin);
+        getMainRequestMapping(plugin).unregisterPlugin(plugin);
     }
 
     private PluginRequestMappingAdapter getMainRequestMapping(SpringBootPlugin plugin) {
@@ -65,6 +64,7 @@ public class SbpWebConfigurer implements IPluginConfigurer {
         stream.filter(bean -> bean.getClass().getClassLoader() == plugin.getPluginClassLoader())
             .forEach(bean -> {
                 SpringBootPlugin.unregisterBeanFromMainContext(mainAppCtx, bean);
+                ((SpringBootPluginManager) plugin.getPluginManager()).markMainBeansModified();
             });
     }
 }
@@ -17,15 +17,34 @@ package org.laxture.sbp.util;
 
 import lombok.NonNull;
 import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.TypeCache;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.InvocationHandlerAdapter;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.StubMethod;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.ClassUtils;
 
 import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static org.springframework.util.ClassUtils.CGLIB_CLASS_SEPARATOR;
 
@@ -34,6 +53,48 @@ import static org.springframework.util.ClassUtils.CGLIB_CLASS_SEPARATOR;
  */
 public class BeanUtil {
 
+    private static final String PROXY_DELEGATE_FIELD = "$sbpDelegate";
+
+    private static final String PROXY_HANDLER_FIELD = "$sbpHandler";
+
+    // (target class, omitted methods) -> generated proxy class, weakly held per ClassLoader
+    private static final TypeCache<List<Object>> PROXY_TYPES =
+        new TypeCache.WithInlineExpunction<>(TypeCache.Sort.WEAK);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // class -> field name -> accessor of field found in class hierarchy, empty if not found
+    private static final ClassValue<Map<String, Optional<FieldHandle>>> FIELDS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<FieldHandle>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // declaring class -> method -> handle taking (target, Object[] parameters)
+    private static final ClassValue<Map<Method, MethodHandle>> METHOD_HANDLES = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // class -> method signature -> method declared in class hierarchy, empty if not found
+    private static final ClassValue<Map<String, Optional<Method>>> DECLARED_METHODS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<Method>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    // class -> method signature -> public method, empty if not found
+    private static final ClassValue<Map<String, Optional<Method>>> PUBLIC_METHODS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<Method>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     private BeanUtil() {}
 
     public static Field getField(@NonNull Class<?> clazz,
@@ -95,21 +156,13 @@ public class BeanUtil {
             return ((Map<?, ?>) target).get(fieldName);
         }
 
+        FieldHandle field = findField(target instanceof Class ? (Class<?>) target : clazz, fieldName);
+        if (field == null) return null;
         try {
-            Field field = target instanceof Class
-                ? ((Class<?>) target).getDeclaredField(fieldName)
-                : clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return field.get(target);
-        } catch (NoSuchFieldException nsfe) {
-            if (clazz.getSuperclass() != null) {
-                return target instanceof Class
-                    ? getFieldValue(((Class<?>) target).getSuperclass(), clazz, fieldName)
-                    : getFieldValue(target, clazz.getSuperclass(), fieldName);
-            } else {
-                return null;
-            }
-        } catch (Exception e) {
+            return field.getter != null ? (Object) field.getter.invokeExact(target) : field.field.get(target);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             return null;
         }
     }
@@ -117,30 +170,41 @@ public class BeanUtil {
     public static void setFieldValue(@NonNull Object target,
                                      @NonNull String fieldName,
                                      Object value) {
-        setFieldValue(target, target.getClass(), fieldName, value);
-    }
-
-    private static void setFieldValue(@NonNull Object target,
-                                      @NonNull Class clazz,
-                                      @NonNull String fieldName,
-                                      Object value) {
+        FieldHandle field = findField(target instanceof Class ? (Class<?>) target : target.getClass(), fieldName);
+        if (field == null) throw new RuntimeException("Set field "+fieldName+" failed.");
         try {
-            Field field = target instanceof Class
-                ? ((Class<?>) target).getDeclaredField(fieldName)
-                : clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            field.set(target, value);
-        } catch (NoSuchFieldException nsfe) {
-            if (clazz.getSuperclass() != null) {
-                setFieldValue(target, clazz.getSuperclass(), fieldName, value);
+            if (field.setter != null) {
+                field.setter.invokeExact(target, value);
             } else {
-                throw new RuntimeException("Set field "+fieldName+" failed.", nsfe);
+                field.field.set(target, value);
             }
-        } catch (Exception e) {
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException("Set field "+fieldName+" failed.", e);
         }
     }
 
+    /**
+     * Find field in class hierarchy. Result is cached along with the class, including
+     * not found, so it's released once the class is unloaded, e.g. plugin is unloaded.
+     */
+    private static FieldHandle findField(Class<?> clazz, String fieldName) {
+        return FIELDS.get(clazz).computeIfAbsent(fieldName, name -> {
+            for (Class<?> clz = clazz; clz != null; clz = clz.getSuperclass()) {
+                try {
+                    Field field = clz.getDeclaredField(name);
+                    field.setAccessible(true);
+                    return Optional.of(new FieldHandle(field));
+                } catch (NoSuchFieldException ignored) {
+                } catch (RuntimeException e) {
+                    return Optional.empty(); // not accessible
+                }
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
     public static <T extends Serializable> T deepClone(@NonNull T o) {
         try {
             ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
@@ -157,35 +221,57 @@ public class BeanUtil {
     public static Method getDeclaredMethod(@NonNull Class<?> clazz,
                                            @NonNull String methodName,
                                            Class<?>... parameterTypes) {
-        Method method = null;
-        Class<?> clz = clazz;
-        while (clz != Object.class) {
-            try {
-                method = parameterTypes.length > 0
-                    ? clz.getDeclaredMethod(methodName, parameterTypes)
-                    : clz.getDeclaredMethod(methodName);
-                break;
-            } catch (NoSuchMethodException e) {
-                clz = clz.getSuperclass();
+        return findMethod(DECLARED_METHODS, clazz, methodName, parameterTypes, () -> {
+            Class<?> clz = clazz;
+            while (clz != Object.class) {
+                try {
+                    Method method = parameterTypes.length > 0
+                        ? clz.getDeclaredMethod(methodName, parameterTypes)
+                        : clz.getDeclaredMethod(methodName);
+                    method.setAccessible(true);
+                    return method;
+                } catch (NoSuchMethodException e) {
+                    clz = clz.getSuperclass();
+                }
             }
-        }
-        if (method != null) method.setAccessible(true);
-        return method;
+            return null;
+        });
     }
 
     public static Method getMethod(@NonNull Class<?> clazz,
                                    @NonNull String methodName,
                                    Class<?>... parameterTypes) {
-        Method method;
-        try {
-            method = parameterTypes.length > 0
-                ? clazz.getMethod(methodName, parameterTypes)
-                : clazz.getMethod(methodName);
-        } catch (NoSuchMethodException e) {
-            return null;
+        return findMethod(PUBLIC_METHODS, clazz, methodName, parameterTypes, () -> {
+            try {
+                Method method = parameterTypes.length > 0
+                    ? clazz.getMethod(methodName, parameterTypes)
+                    : clazz.getMethod(methodName);
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Look up method from cache of the class, including not found. Signature with parameter
+     * types not visible to the class loader is not cached, to not hold them from unloading.
+     */
+    private static Method findMethod(ClassValue<Map<String, Optional<Method>>> cache,
+                                     Class<?> clazz,
+                                     String methodName,
+                                     Class<?>[] parameterTypes,
+                                     Supplier<Method> resolver) {
+        for (Class<?> parameterType : parameterTypes) {
+            if (!ClassUtils.isCacheSafe(parameterType, clazz.getClassLoader())) return resolver.get();
+        }
+        StringBuilder signature = new StringBuilder(methodName);
+        for (Class<?> parameterType : parameterTypes) {
+            signature.append(',').append(parameterType.getName());
         }
-        if (method != null) method.setAccessible(true);
-        return method;
+        return cache.get(clazz).computeIfAbsent(signature.toString(),
+            key -> Optional.ofNullable(resolver.get())).orElse(null);
     }
 
     public static <R, O> R callMethod(O object,
@@ -230,13 +316,38 @@ public class BeanUtil {
 
         if (method == null) return null;
 
+        MethodHandle handle = getMethodHandle(method);
         try {
-            return (R) method.invoke(object, parameters);
+            return handle != null
+                ? (R) (Object) handle.invokeExact(object, parameters)
+                : (R) method.invoke(object, parameters);
         } catch (IllegalAccessException | InvocationTargetException ignore) {
+        } catch (RuntimeException | Error e) {
+            if (handle == null) throw e;
+        } catch (Throwable ignore) {
         }
         return null;
     }
 
+    /**
+     * Unreflect accessible method into handle spreading parameters array, cached along with
+     * the declaring class. Null if method couldn't be unreflected.
+     */
+    private static MethodHandle getMethodHandle(Method method) {
+        return METHOD_HANDLES.get(method.getDeclaringClass()).computeIfAbsent(method, key -> {
+            try {
+                MethodHandle handle = LOOKUP.unreflect(method).asFixedArity();
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                return handle.asType(MethodType.genericMethodType(method.getParameterCount() + 1))
+                    .asSpreader(Object[].class, method.getParameterCount());
+            } catch (IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+        });
+    }
+
     public static String getBeanName(BeanFactory beanFactory, Object bean) {
         String beanName = null;
         Map<String, Object> beans = BeanUtil.getFieldValue(beanFactory, "disposableBeans");
@@ -278,4 +389,95 @@ public class BeanUtil {
         return createProxy((Class<T>) source.getClass(), source, customizer);
     }
 
+    /**
+     * Create subclass proxy forwarding method calls to source object. Public methods are
+     * forwarded by direct invocation on delegate field, which is inlinable by JIT. Other
+     * methods still go through {@link ProxyInvocationHandler} by reflection.
+     * <p>
+     * Proxy is instantiated by no-arg constructor of source class as before, so final
+     * methods, which couldn't be forwarded, still work with initialized state. Delegate is
+     * assigned ahead of super constructor, so methods called by it are forwarded as well.
+     * <p>
+     * Proxy classes are cached per target class and omitted methods under target class's
+     * {@link ClassLoader}, so beans imported by multiple plugins or by plugin restarting
+     * share the same generated class, and instances only differ by delegate.
+     *
+     * @param omittedMethods methods doing nothing in proxy, should only refer to types
+     *                       visible to main app since it's part of cache key.
+     */
+    public static <T> T createDelegatingProxy(T source,
+                                              ElementMatcher<? super MethodDescription> omittedMethods) {
+        Class<T> clazz = (Class<T>) source.getClass();
+        Class<? extends T> proxyClass = (Class<? extends T>) PROXY_TYPES.findOrInsert(
+            clazz.getClassLoader(),
+            Arrays.asList(new TypeCache.SimpleKey(clazz), omittedMethods),
+            () -> makeDelegatingProxyClass(clazz, omittedMethods),
+            PROXY_TYPES);
+        try {
+            return proxyClass.getConstructor(clazz, InvocationHandler.class)
+                .newInstance(source, new ProxyInvocationHandler(source));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static <T> Class<? extends T> makeDelegatingProxyClass(
+            Class<T> clazz, ElementMatcher<? super MethodDescription> omittedMethods)
+            throws NoSuchMethodException {
+        return new ByteBuddy()
+            .subclass(clazz, ConstructorStrategy.Default.NO_CONSTRUCTORS).suffix("_sbp_proxy").unsealed()
+            .defineField(PROXY_DELEGATE_FIELD, clazz, Visibility.PRIVATE)
+            .defineField(PROXY_HANDLER_FIELD, InvocationHandler.class, Visibility.PRIVATE)
+            .defineConstructor(Visibility.PUBLIC)
+                .withParameters(clazz, InvocationHandler.class)
+                .intercept(FieldAccessor.ofField(PROXY_DELEGATE_FIELD).setsArgumentAt(0)
+                    .andThen(FieldAccessor.ofField(PROXY_HANDLER_FIELD).setsArgumentAt(1))
+                    .andThen(MethodCall.invoke(clazz.getDeclaredConstructor())))
+            .method(ElementMatchers.any())
+                .intercept(InvocationHandlerAdapter.toField(PROXY_HANDLER_FIELD))
+            .method(ElementMatchers.<MethodDescription>isPublic()
+                    .and(ElementMatchers.isDeclaredBy(ElementMatchers.<TypeDescription>isPublic())))
+                .intercept(MethodCall.invokeSelf().onField(PROXY_DELEGATE_FIELD).withAllArguments())
+            .method(omittedMethods)
+                .intercept(StubMethod.INSTANCE)
+            .make()
+            .load(clazz.getClassLoader())
+            .getLoaded();
+    }
+
+    /**
+     * Field with handles unreflected once found, handles are null if field couldn't be
+     * unreflected, e.g. setter of static final field.
+     */
+    private static final class FieldHandle {
+
+        private final Field field;
+        // (Object target)Object
+        private final MethodHandle getter;
+        // (Object target, Object value)void
+        private final MethodHandle setter;
+
+        FieldHandle(Field field) {
+            this.field = field;
+            boolean isStatic = Modifier.isStatic(field.getModifiers());
+            MethodHandle getter;
+            try {
+                getter = LOOKUP.unreflectGetter(field);
+                if (isStatic) getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                getter = null;
+            }
+            MethodHandle setter;
+            try {
+                setter = LOOKUP.unreflectSetter(field);
+                if (isStatic) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                setter = null;
+            }
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
 }
@@ -28,6 +28,8 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author <a href="https://github.com/hank-cp">Hank CP</a>
@@ -38,13 +40,18 @@ public class PluginPersistenceManagedTypes implements PersistenceManagedTypes {
 
     private final List<String> managedPackages = Collections.synchronizedList(new ArrayList<>());
 
+    // types scanned when registering, so they are not scanned again when unregistering
+    private final Map<ApplicationContext, PersistenceManagedTypes> registeredTypes = new ConcurrentHashMap<>();
+
     public void registerPackage(ApplicationContext applicationContext) {
         String[] packagesToScan = getPackagesToScan(applicationContext);
         this.registerPackage(applicationContext, packagesToScan);
     }
 
     public void registerPackage(ApplicationContext applicationContext, String[] packagesToScan) {
+        // PersistenceManagedTypesScanner reads entities from plugin META-INF/spring.components if present
         PersistenceManagedTypes packageTypes = new PersistenceManagedTypesScanner(applicationContext).scan(packagesToScan);
+        registeredTypes.put(applicationContext, packageTypes);
         // TODO remove existed classes first, maybe from failed staging plugin
         this.managedClassNames.addAll(packageTypes.getManagedClassNames());
         this.managedPackages.addAll(packageTypes.getManagedPackages());
@@ -56,7 +63,10 @@ public class PluginPersistenceManagedTypes implements PersistenceManagedTypes {
     }
 
     public void unregisterPackage(ApplicationContext applicationContext, String[] packagesToScan) {
-        PersistenceManagedTypes packageTypes = new PersistenceManagedTypesScanner(applicationContext).scan(packagesToScan);
+        PersistenceManagedTypes packageTypes = registeredTypes.remove(applicationContext);
+        if (packageTypes == null) {
+            packageTypes = new PersistenceManagedTypesScanner(applicationContext).scan(packagesToScan);
+        }
         this.managedClassNames.removeAll(packageTypes.getManagedClassNames());
         this.managedPackages.removeAll(packageTypes.getManagedPackages());
     }
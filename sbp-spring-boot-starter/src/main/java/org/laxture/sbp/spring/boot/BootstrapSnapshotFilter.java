@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2019-present the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.laxture.sbp.spring.boot;
+
+import org.laxture.sbp.SpringBootPlugin;
+import org.laxture.sbp.internal.PluginBootstrapSnapshot;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.core.Ordered;
+
+/**
+ * Filter out auto-configurations skipped in last plugin start, according to
+ * {@link PluginBootstrapSnapshot}. It runs before other filters, so skipped
+ * auto-configurations won't be evaluated at all. Take no effect in main application
+ * or while bootstrap cache is disabled.
+ *
+ * @author <a href="https://github.com/hank-cp">Hank CP</a>
+ */
+public class BootstrapSnapshotFilter implements AutoConfigurationImportFilter, BeanFactoryAware, Ordered {
+
+    private PluginBootstrapSnapshot snapshot;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (!(beanFactory instanceof SingletonBeanRegistry)
+                || !((SingletonBeanRegistry) beanFactory).containsSingleton(SpringBootstrap.BEAN_PLUGIN)) return;
+        SpringBootPlugin plugin = (SpringBootPlugin) ((SingletonBeanRegistry) beanFactory)
+                .getSingleton(SpringBootstrap.BEAN_PLUGIN);
+        if (plugin != null && plugin.getSpringBootstrap() != null) {
+            this.snapshot = plugin.getSpringBootstrap().getBootstrapSnapshot();
+        }
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        boolean[] match = new boolean[autoConfigurationClasses.length];
+        for (int i = 0; i < autoConfigurationClasses.length; i++) {
+            match[i] = snapshot == null || autoConfigurationClasses[i] == null
+                    || !snapshot.isSkipped(autoConfigurationClasses[i]);
+        }
+        return match;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+}
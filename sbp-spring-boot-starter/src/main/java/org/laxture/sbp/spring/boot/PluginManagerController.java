@@ -16,6 +16,7 @@
 package org.laxture.sbp.spring.boot;
 
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginResourceChainCache;
 import org.laxture.sbp.spring.boot.model.PluginInfo;
 import org.pf4j.PluginDescriptor;
 import org.pf4j.PluginRuntimeException;
@@ -26,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +39,9 @@ public class PluginManagerController {
     @Autowired
     private SpringBootPluginManager pluginManager;
 
+    @Autowired(required = false)
+    private PluginResourceChainCache resourceChainCache;
+
     @GetMapping(value = "${spring.sbp.controller.base-path:/sbp}/list")
     public List<PluginInfo> list() {
         List<PluginWrapper> loadedPlugins = pluginManager.getPlugins();
@@ -97,4 +102,14 @@ public class PluginManagerController {
         return 0;
     }
 
+    @GetMapping(value = "${spring.sbp.controller.base-path:/sbp}/hibernation-stats")
+    public Map<String, Long> hibernationStats() {
+        return pluginManager.getHibernationStats().toMap();
+    }
+
+    @GetMapping(value = "${spring.sbp.controller.base-path:/sbp}/resource-cache-stats")
+    public Map<String, Long> resourceCacheStats() {
+        return resourceChainCache != null ? resourceChainCache.getStats() : Map.of();
+    }
+
 }
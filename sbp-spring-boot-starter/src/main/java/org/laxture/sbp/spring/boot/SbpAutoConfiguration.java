@@ -145,6 +145,14 @@ public class SbpAutoConfiguration {
 		pluginManager.presetProperties(flatProperties(properties.getPluginProperties()));
 		pluginManager.setExactVersionAllowed(properties.isExactVersionAllowed());
 		pluginManager.setSystemVersion(properties.getSystemVersion());
+		pluginManager.setPluginStartParallelism(properties.getPluginStartParallelism());
+		pluginManager.setLazyPlugins(properties.getLazyPlugins());
+		pluginManager.setPluginIdleTimeout(properties.getPluginIdleTimeout());
+		if (properties.isBootstrapCacheEnabled()) {
+			pluginManager.setBootstrapCacheDir(StringUtils.hasText(properties.getBootstrapCacheDir())
+					? Path.of(properties.getBootstrapCacheDir())
+					: Path.of(System.getProperty("java.io.tmpdir"), "sbp-bootstrap-cache"));
+		}
 
 		return pluginManager;
 	}
@@ -42,4 +42,9 @@ public class SbpPluginProperties {
 	 * Load these resource from plugin classpath only
 	 */
 	public String[] pluginOnlyResources = {};
+	/**
+	 * Base path owned by plugin, requests under it are matched against
+	 * request mappings of this plugin only.
+	 */
+	public String basePath;
 }
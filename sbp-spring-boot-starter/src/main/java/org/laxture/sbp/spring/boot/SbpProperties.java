@@ -21,6 +21,7 @@ import org.pf4j.RuntimeMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -93,5 +94,56 @@ public class SbpProperties {
 	 * The system version used for comparisons to the plugin requires attribute.
 	 */
 	private String systemVersion = "0.0.0";
+	/**
+	 * Max number of plugins to be started concurrently. Plugins are always started
+	 * after their dependencies. Default 1, means plugins are started one by one.
+	 */
+	private int pluginStartParallelism = 1;
+	/**
+	 * How long an incoming request waits for plugin loading. Request will be
+	 * rejected with 503 if loading is not finished in time.
+	 */
+	private Duration loadingRequestTimeout = Duration.ofSeconds(60);
+	/**
+	 * `Retry-After` header responded with rejected request while plugin loading.
+	 */
+	private Duration loadingRetryAfter = Duration.ofSeconds(5);
+	/**
+	 * Plugins started on demand instead of along with main app, keyed by plugin id
+	 * with request mapping patterns the plugin serves. Lazy plugin is started on
+	 * first request to these patterns, or first lookup of its extensions.
+	 */
+	private Map<String, List<String>> lazyPlugins = new HashMap<>();
+	/**
+	 * Started plugins without request or extension lookup for this period are
+	 * stopped, and resumed on next access. Disabled if not set.
+	 */
+	private Duration pluginIdleTimeout;
+	/**
+	 * Persist auto-configurations skipped by conditions when plugin starts, and skip
+	 * them directly in next start if neither plugin jar nor main app is changed.
+	 */
+	private boolean bootstrapCacheEnabled = false;
+	/**
+	 * Directory to persist bootstrap cache. Default `${java.io.tmpdir}/sbp-bootstrap-cache`
+	 */
+	private String bootstrapCacheDir;
+	/**
+	 * Max entries of plugin static resource chain cache, evicted in LRU order.
+	 */
+	private int resourceCacheMaxSize = 10000;
+	/**
+	 * Time to live of plugin static resource chain cache entries.
+	 */
+	private Duration resourceCacheTtl = Duration.ofHours(1);
+	/**
+	 * Extract static resources packaged in plugin jars to a content-addressed directory
+	 * on first hit, and serve them as files with strong ETag.
+	 */
+	private boolean staticResourceExtractEnabled = false;
+	/**
+	 * Directory to extract plugin static resources. Default a temporary directory deleted on shutdown.
+	 */
+	private String staticResourceExtractDir;
 
 }
@@ -16,7 +16,10 @@
 package org.laxture.sbp.spring.boot;
 
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginResourceChainCache;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
 import org.laxture.sbp.internal.webflux.PluginRequestMappingHandlerMapping;
+import org.laxture.sbp.internal.webflux.PluginRouterFunction;
 import org.pf4j.PluginManager;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -28,9 +31,14 @@ import org.springframework.boot.autoconfigure.web.reactive.*;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
 import org.springframework.web.server.WebFilter;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * Sbp main app auto configuration for Spring Boot
  * @author <a href="https://github.com/hank-cp">Hank CP</a>
@@ -41,13 +49,25 @@ import org.springframework.web.server.WebFilter;
 @ConditionalOnProperty(prefix = SbpProperties.PREFIX, value = {"enabled"}, havingValue = "true")
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
 @AutoConfigureBefore({ WebFluxAutoConfiguration.class })
-@EnableConfigurationProperties({WebProperties.class, WebFluxProperties.class})
+@EnableConfigurationProperties({WebProperties.class, WebFluxProperties.class, SbpProperties.class})
 public class SbpWebFluxPatchAutoConfiguration {
 
 	@Bean
 	@ConditionalOnClass(WebFilter.class)
-	public WebFilter pluginLoadingLockServletFilter() {
-		return new PluginLoadingLockServletFilter();
+	public WebFilter pluginLoadingLockServletFilter(SbpProperties properties) {
+		PluginLoadingLockServletFilter filter = new PluginLoadingLockServletFilter();
+		filter.setLoadingTimeout(properties.getLoadingRequestTimeout());
+		filter.setRetryAfter(properties.getLoadingRetryAfter());
+		return filter;
+	}
+
+	/**
+	 * Composed into `routerFunctionMapping` with other router functions of main application,
+	 * plugins then contribute their router functions to it instead of rebuilding all of them.
+	 */
+	@Bean
+	public PluginRouterFunction pluginRouterFunction() {
+		return new PluginRouterFunction();
 	}
 
 	@Bean
@@ -61,6 +81,29 @@ public class SbpWebFluxPatchAutoConfiguration {
 		};
 	}
 
+	@Bean
+	@ConditionalOnProperty(prefix = SbpProperties.PREFIX, value = "static-resource-extract-enabled", havingValue = "true")
+	public PluginStaticResourceStore pluginStaticResourceStore(SbpProperties properties,
+	                                                           WebProperties webProperties) throws IOException {
+		PluginStaticResourceStore store;
+		if (StringUtils.hasText(properties.getStaticResourceExtractDir())) {
+			store = new PluginStaticResourceStore(Path.of(properties.getStaticResourceExtractDir()));
+		} else {
+			// owned by this application instance, deleted on shutdown
+			store = new PluginStaticResourceStore(Files.createTempDirectory("sbp-static-resources"));
+			store.setDeleteOnClose(true);
+		}
+		// generate gzip variants for EncodedResourceResolver
+		store.setPrecompressEnabled(webProperties.getResources().getChain().isCompressed());
+		return store;
+	}
+
+	@Bean
+	public PluginResourceChainCache sbpResourceChainCache(SbpProperties properties) {
+		return new PluginResourceChainCache(PluginResourceChainCache.DEFAULT_CACHE_NAME,
+			properties.getResourceCacheMaxSize(), properties.getResourceCacheTtl());
+	}
+
 	@Bean
 	public PluginWebFluxResourceHandlerRegistrationCustomizer resourceHandlerRegistrationCustomizer() {
 		return new PluginWebFluxResourceHandlerRegistrationCustomizer();
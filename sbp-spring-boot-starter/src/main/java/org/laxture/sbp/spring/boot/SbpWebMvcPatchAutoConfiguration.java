@@ -17,7 +17,10 @@ package org.laxture.sbp.spring.boot;
 
 import jakarta.servlet.Filter;
 import org.laxture.sbp.SpringBootPluginManager;
+import org.laxture.sbp.internal.PluginResourceChainCache;
+import org.laxture.sbp.internal.PluginStaticResourceStore;
 import org.laxture.sbp.internal.webmvc.PluginRequestMappingHandlerMapping;
+import org.laxture.sbp.internal.webmvc.PluginRouterFunction;
 import org.pf4j.PluginManager;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -32,10 +35,15 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 /**
  * Sbp main app auto configuration for Spring Boot
  * @author <a href="https://github.com/hank-cp">Hank CP</a>
@@ -45,9 +53,18 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 @ConditionalOnClass({ PluginManager.class, SpringBootPluginManager.class })
 @ConditionalOnProperty(prefix = SbpProperties.PREFIX, value = "enabled", havingValue = "true")
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
-@EnableConfigurationProperties(WebProperties.class)
+@EnableConfigurationProperties({WebProperties.class, SbpProperties.class})
 public class SbpWebMvcPatchAutoConfiguration {
 
+	/**
+	 * Composed into `routerFunctionMapping` with other router functions of main application,
+	 * plugins then contribute their router functions to it instead of rebuilding all of them.
+	 */
+	@Bean
+	public PluginRouterFunction pluginRouterFunction() {
+		return new PluginRouterFunction();
+	}
+
 	@Bean
 	@ConditionalOnMissingBean(WebMvcRegistrations.class)
 	public WebMvcRegistrations mvcRegistrations() {
@@ -71,8 +88,11 @@ public class SbpWebMvcPatchAutoConfiguration {
 
 	@Bean
 	@ConditionalOnClass(Filter.class)
-	public Filter pluginLoadingLockServletFilter() {
-		return new PluginLoadingLockServletFilter();
+	public Filter pluginLoadingLockServletFilter(SbpProperties properties) {
+		PluginLoadingLockServletFilter filter = new PluginLoadingLockServletFilter();
+		filter.setLoadingTimeout(properties.getLoadingRequestTimeout());
+		filter.setRetryAfter(properties.getLoadingRetryAfter());
+		return filter;
 	}
 
 	@Bean
@@ -86,6 +106,29 @@ public class SbpWebMvcPatchAutoConfiguration {
 		};
 	}
 
+	@Bean
+	@ConditionalOnProperty(prefix = SbpProperties.PREFIX, value = "static-resource-extract-enabled", havingValue = "true")
+	public PluginStaticResourceStore pluginStaticResourceStore(SbpProperties properties,
+	                                                           WebProperties webProperties) throws IOException {
+		PluginStaticResourceStore store;
+		if (StringUtils.hasText(properties.getStaticResourceExtractDir())) {
+			store = new PluginStaticResourceStore(Path.of(properties.getStaticResourceExtractDir()));
+		} else {
+			// owned by this application instance, deleted on shutdown
+			store = new PluginStaticResourceStore(Files.createTempDirectory("sbp-static-resources"));
+			store.setDeleteOnClose(true);
+		}
+		// generate gzip variants for EncodedResourceResolver
+		store.setPrecompressEnabled(webProperties.getResources().getChain().isCompressed());
+		return store;
+	}
+
+	@Bean
+	public PluginResourceChainCache sbpResourceChainCache(SbpProperties properties) {
+		return new PluginResourceChainCache(PluginResourceChainCache.DEFAULT_CACHE_NAME,
+			properties.getResourceCacheMaxSize(), properties.getResourceCacheTtl());
+	}
+
 	@Bean @Primary
 	public PluginResourceHandlerRegistrationCustomizer resourceHandlerRegistrationCustomizer() {
 		return new PluginResourceHandlerRegistrationCustomizer();